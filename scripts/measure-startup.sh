@@ -0,0 +1,59 @@
+#!/bin/sh
+# Measures the time from starting the JVM to the first successful HTTP response, for the plain jar and for the
+# fast-startup build (Spring AOT, CDS archive, startup profile). Build first with:
+#
+#   ./mvnw clean package -Pproduction,startup -DskipTests
+#
+# Usage: scripts/measure-startup.sh [runs]   (default 5 runs per mode, the median is reported)
+set -eu
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+DIR=$(cd "$(dirname "$0")/.." && pwd)
+STARTUP_DIR="$DIR/target/startup"
+JAR=$(find "$STARTUP_DIR" -maxdepth 1 -name '*.jar' | head -n 1)
+
+if [ -z "$JAR" ] || [ ! -f "$STARTUP_DIR/app.jsa" ]; then
+    echo "No fast-startup build found in $STARTUP_DIR, build with -Pproduction,startup first" >&2
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+# Starts the application with the given JVM and application arguments, and prints the milliseconds until / answers
+measure() {
+    start=$(now_ms)
+    (cd "$STARTUP_DIR" && exec java "$@" --server.port="$PORT" --vaadin.launch-browser=false) >/dev/null 2>&1 &
+    pid=$!
+    until curl -fs -o /dev/null "http://localhost:$PORT/"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "The application exited before answering" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    echo $(($(now_ms) - start))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+report() {
+    label=$1
+    shift
+    times=""
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        times="$times $(measure "$@")"
+        i=$((i + 1))
+    done
+    echo "$label: median $(echo "$times" | tr ' ' '\n' | grep . | median) ms (runs:$times)"
+}
+
+report "plain  " -jar "$JAR"
+report "startup" -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -jar "$JAR" --spring.profiles.active=startup
@@ -0,0 +1,91 @@
+package com.example.examplefeature;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.example.Application;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Measures how long it takes to finish {@code sessions} exports that are started at the same time, as when many users
+ * export at once, with and without virtual threads ({@code spring.threads.virtual.enabled}). This only covers the
+ * export jobs; TaskLoadTest (loadtest profile) compares whole sessions, including request handling, with its
+ * {@code virtual} option.
+ * <p>
+ * Run with {@code ./mvnw -Pjmh test-compile exec:exec -Djmh.args="TaskJobBenchmark"}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class TaskJobBenchmark {
+
+    private static final int ROWS = 2_000;
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"16", "256"})
+    int sessions;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private TaskExporter taskExporter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .properties("server.port=0", "vaadin.launch-browser=false", "spring.main.banner-mode=off",
+                        "logging.level.root=warn", "spring.threads.virtual.enabled=" + virtualThreads)
+                .run();
+        taskService = context.getBean(TaskService.class);
+        taskExporter = context.getBean(TaskExporter.class);
+        var newTasks = new ArrayList<NewTask>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            newTasks.add(new NewTask("Task " + i, LocalDate.now().plusDays(i % 30)));
+        }
+        taskService.createTasks(newTasks);
+    }
+
+    // Without a change in between, every export after the first would be served from the artifact cache
+    @Setup(Level.Invocation)
+    public void changeTasks() {
+        context.publishEvent(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, List.of(1L)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void concurrentExports() {
+        var exports = new ArrayList<TaskExportJob>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            exports.add(taskExporter.startExport(progress -> {
+            }));
+        }
+        CompletableFuture.allOf(exports.stream().map(TaskExportJob::result).toArray(CompletableFuture[]::new)).join();
+        exports.forEach(TaskExportJob::release);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.examplefeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.example.Application;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Benchmarks the hot paths of {@link TaskService} against an in-memory H2 database seeded with {@code rows} tasks.
+ * The seed data is generated from a fixed random seed, so every run measures the same table. Searches are meant to
+ * answer within 100 ms at a million tasks, on the first page as well as deep into the results.
+ * <p>
+ * Run with {@code ./mvnw -Pjmh test-compile exec:exec}, or pass JMH options, e.g.
+ * {@code -Djmh.args="TaskServiceBenchmark.list.* -p rows=100000"}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskServiceBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final int BULK_SIZE = 100;
+    // Matches about one task in ninety, through a word every task has and a prefix of many words
+    private static final TaskFilter SEARCH = new TaskFilter("task 99", null, null, null, null);
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private PageRequest lastPage;
+    private TaskCursor lastPageCursor;
+    private TaskCursor lastSearchPageCursor;
+    private long firstId;
+    private long lastId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Vaadin needs a web application context, so the app is started on a random port
+        context = new SpringApplicationBuilder(Application.class)
+                .properties("server.port=0", "vaadin.launch-browser=false", "spring.main.banner-mode=off",
+                        "logging.level.root=warn")
+                .run();
+        taskService = context.getBean(TaskService.class);
+        seed();
+
+        lastPage = PageRequest.of((rows - 1) / PAGE_SIZE, PAGE_SIZE);
+        var beforeLastPage = taskService.list(lastPage.previousOrFirst());
+        lastPageCursor = TaskCursor.of(beforeLastPage.getLast());
+        firstId = taskService.listAfter(null, 1).getFirst().id();
+        lastId = taskService.list(lastPage).getLast().id();
+
+        // The cursor at the start of the last page of search results
+        List<TaskRow> page = taskService.searchAfter(SEARCH, null, PAGE_SIZE);
+        lastSearchPageCursor = null;
+        while (page.size() == PAGE_SIZE) {
+            var cursor = TaskCursor.of(page.getLast());
+            page = taskService.searchAfter(SEARCH, cursor, PAGE_SIZE);
+            if (!page.isEmpty()) {
+                lastSearchPageCursor = cursor;
+            }
+        }
+    }
+
+    private void seed() {
+        var random = new Random(42);
+        var today = LocalDate.now();
+        for (int created = 0; created < rows; created += SEED_BATCH_SIZE) {
+            var batch = new ArrayList<NewTask>(SEED_BATCH_SIZE);
+            for (int i = created; i < Math.min(rows, created + SEED_BATCH_SIZE); i++) {
+                var dueDate = random.nextInt(4) == 0 ? null : today.plusDays(random.nextInt(-30, 60));
+                batch.add(new NewTask("Task " + i, dueDate));
+            }
+            taskService.createTasks(batch);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TaskRow> listFirstPage() {
+        return taskService.list(PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<TaskRow> listLastPage() {
+        return taskService.list(lastPage);
+    }
+
+    @Benchmark
+    public List<TaskRow> listLastPageByCursor() {
+        return taskService.listAfter(lastPageCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<TaskRow> searchFirstPage() {
+        return taskService.searchAfter(SEARCH, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<TaskRow> searchLastPageByCursor() {
+        return taskService.searchAfter(SEARCH, lastSearchPageCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<TaskRow> listSortedByPriority() {
+        return taskService.listSortedByPriority(PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public void exportTasksToIcs() throws IOException {
+        taskService.exportTasksToIcs(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void createTask() {
+        taskService.createTask("Benchmark task", LocalDate.now());
+    }
+
+    @Benchmark
+    public void createTasksInLoop() {
+        for (int i = 0; i < BULK_SIZE; i++) {
+            taskService.createTask("Benchmark task", LocalDate.now());
+        }
+    }
+
+    @Benchmark
+    public void createTasksInBulk() {
+        var newTasks = new ArrayList<NewTask>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            newTasks.add(new NewTask("Benchmark task", LocalDate.now()));
+        }
+        taskService.createTasks(newTasks);
+    }
+
+    @Benchmark
+    public void updateTaskDone() {
+        var random = ThreadLocalRandom.current();
+        taskService.updateTaskDone(random.nextLong(firstId, lastId + 1), random.nextBoolean());
+    }
+
+    @Benchmark
+    public void updateTaskDoneInLoop() {
+        var random = ThreadLocalRandom.current();
+        var done = random.nextBoolean();
+        for (long id : randomIds(random)) {
+            taskService.updateTaskDone(id, done);
+        }
+    }
+
+    @Benchmark
+    public int markDoneInBulk() {
+        var random = ThreadLocalRandom.current();
+        return taskService.markDone(randomIds(random), random.nextBoolean());
+    }
+
+    private List<Long> randomIds(ThreadLocalRandom random) {
+        var ids = new ArrayList<Long>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            ids.add(random.nextLong(firstId, lastId + 1));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,413 @@
+package com.example.examplefeature;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.example.Application;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.dom.Element;
+import com.vaadin.flow.internal.nodefeature.ElementData;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Simulates concurrent users of the task views against an in-memory database seeded with {@code rows} tasks, and
+ * reports latency percentiles, throughput, heap per session and GC activity.
+ * <p>
+ * Every simulated session first opens the task list and the calendar over HTTP with the same init requests a browser
+ * sends, so the server creates a real Vaadin session and UIs for it, and then navigates them the way the browser does
+ * once it has loaded, which creates the views. The session then keeps working with a random think time between
+ * actions. Scrolling and ticking tasks as done go through the grid of the task list view, inside {@link UI#access}:
+ * the grid's data provider fetches the rows, the renderers generate their data, and the rows are released again as
+ * the browser would confirm them, so the numbers include the data-provider traffic and renderer state of real views.
+ * Creating tasks, loading calendar months and exporting call the beans the views use, as the calendar component needs
+ * a browser to ask for its entries; the task list views of all sessions still refresh through their change listeners.
+ * </p>
+ * <p>
+ * Run with {@code ./mvnw -Pproduction,loadtest test-compile exec:exec}, or pass options, e.g.
+ * {@code -Dloadtest.args="sessions=200 duration=120 rows=100000"}. Pass {@code virtual=true} to run the application
+ * with {@code spring.threads.virtual.enabled}, so that runs with and without virtual threads can be compared. The
+ * results are also written as JSON to {@code target/loadtest-result.json}.
+ * </p>
+ */
+public class TaskLoadTest {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long SETTLE_MILLIS = 3000;
+
+    private final int sessions;
+    private final Duration duration;
+    private final int rows;
+    private final long thinkMillis;
+    private final boolean virtualThreads;
+    private final Path resultFile;
+
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+    // UIs created by the init requests, taken by the session that sent the request
+    private final Queue<UI> createdUis = new ConcurrentLinkedQueue<>();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private TaskDoneWriter taskDoneWriter;
+    private TaskExporter taskExporter;
+
+    TaskLoadTest(Map<String, String> options) {
+        sessions = Integer.parseInt(options.getOrDefault("sessions", "50"));
+        duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        rows = Integer.parseInt(options.getOrDefault("rows", "10000"));
+        thinkMillis = Long.parseLong(options.getOrDefault("think", "500"));
+        virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual", "false"));
+        resultFile = Path.of(options.getOrDefault("out", "target/loadtest-result.json"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = new HashMap<String, String>();
+        for (String arg : args) {
+            var separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new TaskLoadTest(options).run();
+    }
+
+    void run() throws Exception {
+        context = new SpringApplicationBuilder(Application.class)
+                .properties("server.port=0", "vaadin.launch-browser=false", "spring.main.banner-mode=off",
+                        "logging.level.root=warn", "spring.threads.virtual.enabled=" + virtualThreads)
+                .initializers(applicationContext -> applicationContext.getBeanFactory().registerSingleton(
+                        "loadTestUiCollector", (VaadinServiceInitListener) event -> event.getSource()
+                                .addUIInitListener(uiInit -> createdUis.add(uiInit.getUI()))))
+                .run();
+        try {
+            taskService = context.getBean(TaskService.class);
+            taskDoneWriter = context.getBean(TaskDoneWriter.class);
+            taskExporter = context.getBean(TaskExporter.class);
+            var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            seed();
+
+            // Lets the background work triggered by seeding (change notifications, search index) finish first
+            Thread.sleep(SETTLE_MILLIS);
+            var memory = ManagementFactory.getMemoryMXBean();
+            var heapBefore = usedHeapAfterGc(memory);
+            var openedSessions = openSessions(port);
+            if (openedSessions.isEmpty()) {
+                throw new IllegalStateException("No session could open the task list");
+            }
+            var heapPerSession = (usedHeapAfterGc(memory) - heapBefore) / sessions;
+
+            var gcBefore = gcTotals();
+            var allocatedBefore = allocatedBytes();
+            var start = System.nanoTime();
+            runSessions(openedSessions);
+            var elapsed = Duration.ofNanos(System.nanoTime() - start);
+            var gcAfter = gcTotals();
+            var allocated = allocatedBytes() - allocatedBefore;
+
+            report(openedSessions.size(), elapsed, heapPerSession, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1],
+                    allocated);
+        } finally {
+            context.close();
+        }
+    }
+
+    private void seed() {
+        var random = new Random(42);
+        var today = LocalDate.now();
+        for (int created = 0; created < rows; created += SEED_BATCH_SIZE) {
+            var batch = new ArrayList<NewTask>(SEED_BATCH_SIZE);
+            for (int i = created; i < Math.min(rows, created + SEED_BATCH_SIZE); i++) {
+                var dueDate = random.nextInt(4) == 0 ? null : today.plusDays(random.nextInt(-30, 60));
+                batch.add(new NewTask("Task " + i, dueDate));
+            }
+            taskService.createTasks(batch);
+        }
+    }
+
+    /**
+     * Opens the task list and the calendar in a new HTTP session per simulated user, like a browser does: the init
+     * request makes the server create the session and a UI, and the navigation event the browser then sends creates
+     * the view of the requested location.
+     */
+    private List<SimulatedSession> openSessions(int port) throws Exception {
+        var openedSessions = new ArrayList<SimulatedSession>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            var client = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+            SimulatedSession session = null;
+            for (String location : List.of("", "calendar")) {
+                var request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + port + "/?v-r=init&location=" + location))
+                        .timeout(REQUEST_TIMEOUT).GET().build();
+                var started = System.nanoTime();
+                var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                // The init response describes the UI the server created for the session
+                var ui = createdUis.poll();
+                if (response.statusCode() != 200 || !response.body().contains("\"v-uiId\"") || ui == null) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+                var taskGrid = new AtomicReference<@Nullable Grid<TaskRow>>();
+                ui.access(() -> {
+                    ui.browserNavigate(new UI.BrowserNavigateEvent(ui, true, location, "", "", null, ""));
+                    respond(ui);
+                    taskGrid.set(findTaskGrid(ui));
+                }).get();
+                record(location.isEmpty() ? "open-task-list" : "open-calendar", started);
+                if (location.isEmpty() && taskGrid.get() != null) {
+                    session = new SimulatedSession(client, ui, taskGrid.get());
+                }
+            }
+            if (session == null) {
+                errors.incrementAndGet();
+            } else {
+                openedSessions.add(session);
+            }
+        }
+        return openedSessions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static @Nullable Grid<TaskRow> findTaskGrid(Component component) {
+        if (component instanceof Grid<?> grid) {
+            return (Grid<TaskRow>) grid;
+        }
+        return component.getChildren().map(TaskLoadTest::findTaskGrid).filter(Objects::nonNull).findFirst()
+                .orElse(null);
+    }
+
+    private void runSessions(List<SimulatedSession> openedSessions) throws InterruptedException {
+        var deadline = System.nanoTime() + duration.toNanos();
+        // Platform threads, so that their allocations are included in allocatedBytes()
+        try (ExecutorService executor = Executors.newFixedThreadPool(openedSessions.size())) {
+            for (var session : openedSessions) {
+                executor.execute(() -> simulateSession(session, deadline));
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Sessions did not finish in time");
+            }
+        }
+    }
+
+    private void simulateSession(SimulatedSession session, long deadline) {
+        var random = ThreadLocalRandom.current();
+        var ui = session.ui();
+        var grid = session.taskGrid();
+        var firstRow = new AtomicInteger();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(random.nextLong(2 * thinkMillis + 1));
+                var action = random.nextInt(100);
+                var started = System.nanoTime();
+                if (action < 55) {
+                    // Scrolling the grid down a page, as the browser asks for the rows that come into view
+                    ui.access(() -> {
+                        var dataCommunicator = grid.getDataCommunicator();
+                        var next = firstRow.get() + PAGE_SIZE;
+                        firstRow.set(next < dataCommunicator.getItemCount() ? next : 0);
+                        dataCommunicator.setViewportRange(firstRow.get(), PAGE_SIZE);
+                        respond(ui);
+                    }).get();
+                    record("scroll", started);
+                } else if (action < 80) {
+                    // Ticking a row in view, which the view writes through TaskDoneWriter and then refreshes
+                    var offset = random.nextInt(PAGE_SIZE);
+                    var inView = new AtomicReference<@Nullable TaskRow>();
+                    ui.access(() -> {
+                        var dataCommunicator = grid.getDataCommunicator();
+                        var index = Math.min(firstRow.get() + offset,
+                                dataCommunicator.getItemCount() - 1);
+                        inView.set(index < 0 ? null : dataCommunicator.getItem(index));
+                    }).get();
+                    var task = inView.get();
+                    if (task == null) {
+                        continue;
+                    }
+                    TaskRow written;
+                    try {
+                        written = taskDoneWriter.setDone(task, !task.done(), ui).join();
+                    } catch (RuntimeException e) {
+                        if (!(e.getCause() instanceof OptimisticLockingFailureException)) {
+                            throw e;
+                        }
+                        conflicts.incrementAndGet();
+                        written = taskService.findById(task.id()).orElse(task);
+                    }
+                    var refreshed = written;
+                    ui.access(() -> {
+                        grid.getDataProvider().refreshItem(refreshed);
+                        respond(ui);
+                    }).get();
+                    record("toggle-done", started);
+                } else if (action < 90) {
+                    taskService.createTask("Load test task", LocalDate.now().plusDays(random.nextInt(30)));
+                    record("create", started);
+                } else if (action < 98) {
+                    var month = LocalDate.now().withDayOfMonth(1).plusMonths(random.nextInt(-1, 2));
+                    taskService.listDueBetween(month, month.plusMonths(1).minusDays(1));
+                    record("calendar-month", started);
+                } else {
+                    var export = taskExporter.startExport(progress -> {
+                    });
+                    export.result().join();
+                    export.release();
+                    record("export", started);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | RuntimeException e) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Does to a UI what sending it a response does, and answers like the browser: the data communicators of the grids
+     * send the rows in view with the data of their renderers, and the rows the browser confirms having received are
+     * released. Must be called with the session locked.
+     */
+    private static void respond(UI ui) {
+        var internals = ui.getInternals();
+        internals.getStateTree().runExecutionsBeforeClientResponse();
+        internals.getStateTree().collectChanges(change -> {
+        });
+        for (var pending : internals.dumpPendingJavaScriptInvocations()) {
+            var invocation = pending.getInvocation();
+            if (invocation.getExpression().contains("$connector.confirm")
+                    && pending.getOwner().hasFeature(ElementData.class)
+                    && Element.get(pending.getOwner()).getComponent().orElse(null) instanceof Grid<?> grid) {
+                grid.getDataCommunicator().confirmUpdate(((Number) invocation.getParameters().getLast()).intValue());
+            }
+        }
+    }
+
+    private void record(String operation, long startedNanos) {
+        var elapsed = System.nanoTime() - startedNanos;
+        latencies.computeIfAbsent(operation, key -> Collections.synchronizedList(new ArrayList<>()))
+                .add(elapsed);
+    }
+
+    // Collects until the used heap stops shrinking, so that garbage left by earlier phases is not counted
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(200);
+            var usedNow = memory.getHeapMemoryUsage().getUsed();
+            if (usedNow >= used) {
+                return usedNow;
+            }
+            used = usedNow;
+        }
+        return used;
+    }
+
+    // Number of collections and milliseconds spent collecting, over all collectors
+    private static long[] gcTotals() {
+        long count = 0;
+        long time = 0;
+        for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+    }
+
+    private void report(int openedSessions, Duration elapsed, long heapPerSession, long gcCount, long gcMillis,
+                        long allocatedBytes) throws IOException {
+        var operations = new LinkedHashMap<String, OperationResult>();
+        long total = 0;
+        for (var entry : new TreeMap<>(latencies).entrySet()) {
+            long[] nanos;
+            synchronized (entry.getValue()) {
+                nanos = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+            }
+            Arrays.sort(nanos);
+            operations.put(entry.getKey(), new OperationResult(nanos.length, percentile(nanos, 0.50),
+                    percentile(nanos, 0.99), nanos[nanos.length - 1] / 1e6));
+            if (!entry.getKey().startsWith("open-")) {
+                total += nanos.length;
+            }
+        }
+        var seconds = elapsed.toMillis() / 1000.0;
+        var result = new LoadTestResult(openedSessions, rows, virtualThreads, seconds, total / seconds,
+                heapPerSession / 1024, gcCount, gcMillis, allocatedBytes / seconds / (1024 * 1024), errors.get(),
+                conflicts.get(), operations);
+
+        System.out.printf("%-15s %8s %10s %10s %10s%n", "operation", "count", "p50 ms", "p99 ms", "max ms");
+        operations.forEach((name, op) -> System.out.printf("%-15s %8d %10.2f %10.2f %10.2f%n",
+                name, op.count(), op.p50Millis(), op.p99Millis(), op.maxMillis()));
+        System.out.printf("%nsessions %d, virtual threads %b, %.1f s, %.1f ops/s, %d KB heap per session%n",
+                openedSessions, virtualThreads, seconds, result.throughputPerSecond(), result.heapPerSessionKb());
+        System.out.printf("GC: %d collections, %d ms; allocation rate %.1f MB/s; %d errors, %d conflicts%n",
+                gcCount, gcMillis, result.allocationMbPerSecond(), result.errors(), result.conflicts());
+
+        Files.createDirectories(resultFile.toAbsolutePath().getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(resultFile.toFile(), result);
+        System.out.println("Results written to " + resultFile);
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        var index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    record SimulatedSession(HttpClient client, UI ui, Grid<TaskRow> taskGrid) {
+    }
+
+    record OperationResult(int count, double p50Millis, double p99Millis, double maxMillis) {
+    }
+
+    record LoadTestResult(int sessions, int rows, boolean virtualThreads, double seconds, double throughputPerSecond,
+                          long heapPerSessionKb, long gcCount, long gcMillis, double allocationMbPerSecond, long errors,
+                          long conflicts, Map<String, OperationResult> operations) {
+    }
+}
@@ -1,17 +1,18 @@
 package com.example.application.views.calendar;
 
-import com.example.examplefeature.Task;
+import com.example.examplefeature.TaskRow;
 import com.example.examplefeature.TaskService;
 import com.vaadin.flow.component.html.Main;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.theme.lumo.LumoUtility;
-import org.vaadin.stefan.fullcalendar.FullCalendar;
+import org.jspecify.annotations.Nullable;
 import org.vaadin.stefan.fullcalendar.Entry;
+import org.vaadin.stefan.fullcalendar.FullCalendar;
+import org.vaadin.stefan.fullcalendar.dataprovider.EntryProvider;
+import org.vaadin.stefan.fullcalendar.dataprovider.EntryQuery;
 
-import java.time.ZoneId;
-import java.time.ZoneOffset;
-import java.util.List;
+import java.util.stream.Stream;
 
 @Route(value = "calendar", layout = com.example.base.ui.MainLayout.class)
 @PageTitle("Calendar | Todo App")
@@ -22,31 +23,47 @@ class CalendarView extends Main {
     CalendarView(TaskService taskService) {
         this.taskService = taskService;
         var calendar = new FullCalendar();
-        var entryProvider = calendar.getEntryProvider().asInMemory();
-
-        // Load tasks and add to calendar
-        List<Task> tasks = taskService.findAll();
-        for (Task task : tasks) {
-            if (task.getDueDate() != null) {
-                Entry entry = new Entry();
-                entry.setTitle(task.getDescription());
-                var start = task.getDueDate().atStartOfDay();
-                entry.setStart(start);
-                entry.setEnd(start.plusDays(1));
-                entry.setAllDay(true);
-                if (task.isDone()) {
-                    entry.setColor("#28a745"); // Green for done
-                } else {
-                    entry.setColor("#6c757d"); // Gray for pending
-                }
-                entryProvider.addEntries(entry);
-            }
-        }
-        entryProvider.refreshAll();
+
+        // Only the tasks due in the visible date range are fetched, whenever the calendar asks for them
+        calendar.setEntryProvider(EntryProvider.fromCallbacks(this::fetchEntries, this::fetchEntry));
 
         setSizeFull();
         addClassNames(LumoUtility.BoxSizing.BORDER, LumoUtility.Display.FLEX, LumoUtility.FlexDirection.COLUMN,
                 LumoUtility.Padding.MEDIUM, LumoUtility.Gap.SMALL);
         add(calendar);
     }
+
+    private Stream<Entry> fetchEntries(EntryQuery query) {
+        if (query.getStart() == null || query.getEnd() == null) {
+            return Stream.empty();
+        }
+        // The end of the query range is exclusive
+        var from = query.getStart().toLocalDate();
+        var to = query.getEnd().minusNanos(1).toLocalDate();
+        return taskService.listDueBetween(from, to).stream().map(CalendarView::toEntry);
+    }
+
+    // The task may have lost its due date since its entry was fetched, and then it's no longer on the calendar
+    private @Nullable Entry fetchEntry(String entryId) {
+        return taskService.findById(Long.valueOf(entryId))
+                .filter(task -> task.dueDate() != null)
+                .map(CalendarView::toEntry)
+                .orElse(null);
+    }
+
+    // Only called for tasks with a due date
+    private static Entry toEntry(TaskRow task) {
+        Entry entry = new Entry(String.valueOf(task.id()));
+        entry.setTitle(task.description());
+        var start = task.dueDate().atStartOfDay();
+        entry.setStart(start);
+        entry.setEnd(start.plusDays(1));
+        entry.setAllDay(true);
+        if (task.done()) {
+            entry.setColor("#28a745"); // Green for done
+        } else {
+            entry.setColor("#6c757d"); // Gray for pending
+        }
+        return entry;
+    }
 }
@@ -1,27 +1,75 @@
 package com.example.base.ui;
 
+import com.example.examplefeature.TaskReminder;
+import com.example.examplefeature.TaskReminders;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.applayout.AppLayout;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.Scroller;
 import com.vaadin.flow.component.sidenav.SideNav;
 import com.vaadin.flow.component.sidenav.SideNavItem;
 import com.vaadin.flow.router.Layout;
 import com.vaadin.flow.server.menu.MenuConfiguration;
 import com.vaadin.flow.server.menu.MenuEntry;
+import com.vaadin.flow.shared.Registration;
+
+import java.util.List;
 
 import static com.vaadin.flow.theme.lumo.LumoUtility.*;
 
 @Layout
 public final class MainLayout extends AppLayout {
 
-    MainLayout() {
+    private static final int MAX_REMINDER_NOTIFICATIONS = 3;
+
+    private final TaskReminders taskReminders;
+
+    private Registration reminderRegistration;
+
+    MainLayout(TaskReminders taskReminders) {
+        this.taskReminders = taskReminders;
         setPrimarySection(Section.DRAWER);
         addToDrawer(createHeader(), new Scroller(createSideNav()));
     }
 
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        // The layout stays attached while navigating between views, so every open session gets the reminders once
+        var ui = attachEvent.getUI();
+        reminderRegistration = taskReminders.addListener(reminders -> ui.access(() -> showReminders(reminders)));
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        reminderRegistration.remove();
+    }
+
+    private void showReminders(List<TaskReminder> reminders) {
+        // A day with many reminders gets a summary rather than a notification per task
+        if (reminders.size() > MAX_REMINDER_NOTIFICATIONS) {
+            var overdue = reminders.stream().filter(reminder -> reminder.type() == TaskReminder.Type.OVERDUE).count();
+            Notification.show("%d tasks are due soon, of which %d are overdue".formatted(reminders.size(), overdue),
+                    5000, Notification.Position.BOTTOM_END).addThemeVariants(NotificationVariant.LUMO_CONTRAST);
+            return;
+        }
+        for (var reminder : reminders) {
+            var text = switch (reminder.type()) {
+                case MEDIUM_PRIORITY -> "Due in 5 days: ";
+                case HIGH_PRIORITY -> "Due in 2 days: ";
+                case OVERDUE -> "Overdue: ";
+            } + reminder.task().description();
+            Notification.show(text, 5000, Notification.Position.BOTTOM_END).addThemeVariants(
+                    reminder.type() == TaskReminder.Type.OVERDUE ? NotificationVariant.LUMO_ERROR
+                            : NotificationVariant.LUMO_CONTRAST);
+        }
+    }
+
     private Div createHeader() {
         // TODO Replace with real application logo and name
         var appLogo = VaadinIcon.CUBES.create();
@@ -0,0 +1,56 @@
+package com.example.examplefeature;
+
+import jakarta.persistence.*;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A done task that has been moved out of the {@code task} table by {@link TaskArchiver}, so that the tables and
+ * indexes the application reads all the time only hold tasks that are still of interest. Archived tasks keep their id
+ * and are never changed again.
+ */
+@Entity
+@Table(name = "task_archive")
+class ArchivedTask {
+
+    @Id
+    @Column(name = "task_id")
+    private Long id;
+
+    @Column(name = "description", nullable = false, length = Task.DESCRIPTION_MAX_LENGTH)
+    private String description;
+
+    @Column(name = "creation_date", nullable = false)
+    private Instant creationDate;
+
+    @Column(name = "due_date")
+    @Nullable
+    private LocalDate dueDate;
+
+    @Column(name = "last_modified", nullable = false)
+    private Instant lastModified;
+
+    @Column(name = "ical_uid")
+    @Nullable
+    private String icalUid;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "color_index", nullable = false)
+    private Task.Color color;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    protected ArchivedTask() { // To keep Hibernate happy
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    Instant getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.examplefeature;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+interface ArchivedTaskRepository extends JpaRepository<ArchivedTask, Long> {
+
+    // Archived tasks are read as TaskRows as well. They are done, and as they never change, their version is 0.
+    String SELECT_ROWS = """
+            select new com.example.examplefeature.TaskRow(
+                a.id, 0L, a.description, a.creationDate, a.dueDate, true, a.color, a.icalUid)
+            from ArchivedTask a""";
+
+    // Copies the tasks inside the database, without loading them into the application
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            insert into ArchivedTask (id, description, creationDate, dueDate, lastModified, icalUid, color, archivedAt)
+            select t.id, t.description, t.creationDate, t.dueDate, t.lastModified, t.icalUid, t.color, :archivedAt
+            from Task t where t.id in :ids""")
+    int copyFromTasks(Collection<Long> ids, Instant archivedAt);
+
+    @Query(SELECT_ROWS)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TaskRepository.FETCH_SIZE))
+    List<TaskRow> findAllRows();
+
+    @Query(SELECT_ROWS + " where a.id > :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TaskRepository.FETCH_SIZE))
+    Slice<TaskRow> findRowsWithIdGreaterThan(Long id, Pageable pageable);
+
+    // Archived tasks are not in the search index, so their descriptions are matched by the database
+    @Query(SELECT_ROWS + """
+             where lower(a.description) like :pattern escape '\\'
+               and (a.creationDate > :creationDate or (a.creationDate = :creationDate and a.id > :id))
+            order by a.creationDate asc, a.id asc""")
+    List<TaskRow> findRowsLikeAfter(String pattern, Instant creationDate, Long id, Limit limit);
+}
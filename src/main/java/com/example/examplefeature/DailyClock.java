@@ -0,0 +1,55 @@
+package com.example.examplefeature;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Shared source of "today" for date arithmetic that runs on hot paths, such as task priorities. The current day is
+ * kept as an epoch day and only recomputed once the clock passes midnight, so asking for it costs a clock read and
+ * no allocation.
+ * <p>
+ * The clock can be replaced, which makes date-dependent behaviour deterministic in tests.
+ * </p>
+ */
+public final class DailyClock {
+
+    private record Day(long epochDay, long endMillis) {
+    }
+
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    private static volatile Day today = dayOf(clock);
+
+    private DailyClock() {
+    }
+
+    /**
+     * Returns the current day as the number of days since 1970-01-01.
+     */
+    public static long today() {
+        var day = today;
+        if (clock.millis() >= day.endMillis()) {
+            day = dayOf(clock);
+            today = day;
+        }
+        return day.epochDay();
+    }
+
+    public static LocalDate todayAsDate() {
+        return LocalDate.ofEpochDay(today());
+    }
+
+    public static Clock clock() {
+        return clock;
+    }
+
+    public static void useClock(Clock newClock) {
+        clock = newClock;
+        today = dayOf(newClock);
+    }
+
+    private static Day dayOf(Clock clock) {
+        var date = LocalDate.now(clock);
+        var endMillis = date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        return new Day(date.toEpochDay(), endMillis);
+    }
+}
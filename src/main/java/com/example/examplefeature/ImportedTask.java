@@ -0,0 +1,11 @@
+package com.example.examplefeature;
+
+import java.time.LocalDate;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A task read from a calendar event, identified by the event's UID if it has one.
+ */
+record ImportedTask(@Nullable String icalUid, String description, @Nullable LocalDate dueDate) {
+}
@@ -0,0 +1,11 @@
+package com.example.examplefeature;
+
+import org.jspecify.annotations.Nullable;
+
+import java.time.LocalDate;
+
+/**
+ * A task to be created in bulk through {@link TaskService#createTasks(java.util.List)}.
+ */
+public record NewTask(String description, @Nullable LocalDate dueDate) {
+}
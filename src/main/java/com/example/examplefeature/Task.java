@@ -1,23 +1,43 @@
 package com.example.examplefeature;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.jspecify.annotations.Nullable;
 
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
-@Table(name = "task")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task")
+@Table(name = "task", indexes = {
+        @Index(name = "task_due_date_idx", columnList = "due_date"),
+        @Index(name = "task_creation_order_idx", columnList = "creation_date, task_id"),
+        @Index(name = "task_last_modified_idx", columnList = "last_modified"),
+        @Index(name = "task_ical_uid_idx", columnList = "ical_uid", unique = true)
+})
 public class Task {
 
     public static final int DESCRIPTION_MAX_LENGTH = 300;
 
+    private static final long NO_DUE_DATE = Long.MAX_VALUE;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    // Ids are handed out from blocks of 50 (pooled optimizer), so batched inserts don't need a sequence call per row
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
     @Column(name = "task_id")
     private Long id;
 
+    // Incremented with every update, so that writes based on an outdated state of the task can be detected
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @Column(name = "description", nullable = false, length = DESCRIPTION_MAX_LENGTH)
     private String description = "";
 
@@ -28,10 +48,28 @@ public class Task {
     @Nullable
     private LocalDate dueDate;
 
+    // Set by TaskService whenever it changes the task, so feeds can tell what changed since a client last looked
+    @Column(name = "last_modified", nullable = false)
+    private Instant lastModified;
+
+    // Due date as an epoch day, so priorities can be computed with plain arithmetic
+    @Transient
+    private long dueEpochDay = NO_DUE_DATE;
+
     @Column(name = "done")
     private boolean done = false;
-    @Column(name = "color")
-    private String color;
+
+    // UID of the calendar event of the task. Tasks get a random one when created and keep the one of the event they were
+    // imported from, so that importing an export again updates the tasks instead of duplicating them. Null only for
+    // tasks created before UIDs were assigned, until TaskService assigns them one at startup.
+    @Column(name = "ical_uid")
+    @Nullable
+    private String icalUid;
+
+    // Stored as the ordinal, so reordering or removing colors requires migrating the column. Append new ones.
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "color_index", nullable = false)
+    private Color color;
 
     protected Task() { // To keep Hibernate happy
     }
@@ -39,13 +77,19 @@ public class Task {
     public Task(String description, Instant creationDate) {
         setDescription(description);
         this.creationDate = creationDate;
-        this.color = com.example.ColorService.generateRandomColor();
+        this.lastModified = creationDate;
+        this.color = Color.random();
+        this.icalUid = UUID.randomUUID().toString();
     }
 
     public @Nullable Long getId() {
         return id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -61,12 +105,26 @@ public class Task {
         return creationDate;
     }
 
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
     public @Nullable LocalDate getDueDate() {
         return dueDate;
     }
 
     public void setDueDate(@Nullable LocalDate dueDate) {
         this.dueDate = dueDate;
+        updateDueEpochDay();
+    }
+
+    @PostLoad
+    private void updateDueEpochDay() {
+        dueEpochDay = dueDate == null ? NO_DUE_DATE : dueDate.toEpochDay();
     }
 
     public boolean isDone() {
@@ -76,14 +134,46 @@ public class Task {
     public void setDone(boolean done) {
         this.done = done;
     }
-    public String getColor() {
+
+    public @Nullable String getIcalUid() {
+        return icalUid;
+    }
+
+    void setIcalUid(@Nullable String icalUid) {
+        this.icalUid = icalUid;
+    }
+
+    public Color getColor() {
         return color;
     }
 
-    public void setColor(String color) {
+    public void setColor(Color color) {
         this.color = color;
     }
 
+    /**
+     * Row colors. The actual color of each entry is defined by the theme, through the part name.
+     */
+    public enum Color {
+        BLUE, GREEN, YELLOW, ORANGE, RED, PURPLE, TEAL, GRAY;
+
+        private static final Color[] VALUES = values();
+
+        private final String partName;
+
+        Color() {
+            this.partName = "task-color-" + name().toLowerCase(Locale.ROOT);
+        }
+
+        public String getPartName() {
+            return partName;
+        }
+
+        static Color random() {
+            return VALUES[ThreadLocalRandom.current().nextInt(VALUES.length)];
+        }
+    }
+
     public enum Priority {
         HIGH("HIGH", "danger"),
         MEDIUM("MEDIUM", "warning"),
@@ -104,24 +194,30 @@ public class Task {
         public String getThemeVariant() {
             return themeVariant;
         }
-    }
 
-    public Priority getPriority() {
-        if (dueDate == null) {
-            return Priority.LOW; // Sem data de conclusão = baixa prioridade
+        static Priority of(@Nullable LocalDate dueDate, long todayEpochDay) {
+            return of(dueDate == null ? NO_DUE_DATE : dueDate.toEpochDay(), todayEpochDay);
         }
 
-        long daysUntilDue = ChronoUnit.DAYS.between(LocalDate.now(), dueDate);
-
-        if (daysUntilDue <= 2) {
-            return Priority.HIGH;
-        } else if (daysUntilDue <= 5) {
-            return Priority.MEDIUM;
-        } else {
-            return Priority.LOW;
+        static Priority of(long dueEpochDay, long todayEpochDay) {
+            if (dueEpochDay == NO_DUE_DATE) {
+                return LOW; // Sem data de conclusão = baixa prioridade
+            }
+            long daysUntilDue = dueEpochDay - todayEpochDay;
+            if (daysUntilDue <= 2) {
+                return HIGH;
+            } else if (daysUntilDue <= 5) {
+                return MEDIUM;
+            } else {
+                return LOW;
+            }
         }
     }
 
+    public Priority getPriority() {
+        return Priority.of(dueEpochDay, DailyClock.today());
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null || !getClass().isAssignableFrom(obj.getClass())) {
@@ -0,0 +1,45 @@
+package com.example.examplefeature;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves tasks that have been done for a while from the {@code task} table to the {@code task_archive} table, so that
+ * lists, calendars and exports don't have to read past them. Tasks are moved in batches of one transaction each, which
+ * keeps locks and undo logs small however many tasks are due for archival.
+ */
+@Component
+class TaskArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskArchiver.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final TaskService taskService;
+    private final Duration archiveAfter;
+
+    TaskArchiver(TaskService taskService, @Value("${app.tasks.archive.after-days:30}") int archiveAfterDays) {
+        this.taskService = taskService;
+        this.archiveAfter = Duration.ofDays(archiveAfterDays);
+    }
+
+    @Scheduled(cron = "${app.tasks.archive.cron:0 30 3 * * *}")
+    void archiveDoneTasks() {
+        var doneBefore = Instant.now().minus(archiveAfter);
+        long archived = 0;
+        int batch;
+        do {
+            batch = taskService.archiveDoneTasks(doneBefore, BATCH_SIZE);
+            archived += batch;
+        } while (batch == BATCH_SIZE);
+        if (archived > 0) {
+            log.info("Archived {} tasks done before {}", archived, doneBefore);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.examplefeature;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.ZoneId;
+import java.util.Date;
+
+import net.fortuna.ical4j.data.FoldingWriter;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.CalScale;
+import net.fortuna.ical4j.model.property.DtEnd;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.ProdId;
+import net.fortuna.ical4j.model.property.Summary;
+import net.fortuna.ical4j.model.property.Uid;
+import net.fortuna.ical4j.model.property.Version;
+
+/**
+ * Writes tasks as an iCalendar document one {@code VEVENT} at a time, so that the calendar never has to be held in
+ * memory as a whole.
+ */
+class TaskCalendarWriter {
+
+    private static final String PRODUCT_ID = "-//Tasks App//iCal4j 1.0//EN";
+
+    private final FoldingWriter writer;
+
+    TaskCalendarWriter(Writer writer) {
+        this.writer = new FoldingWriter(writer);
+    }
+
+    void writeHeader() throws IOException {
+        writer.write("BEGIN:VCALENDAR\r\n");
+        writer.write(new ProdId(PRODUCT_ID).toString());
+        writer.write(Version.VERSION_2_0.toString());
+        writer.write(CalScale.GREGORIAN.toString());
+    }
+
+    void writeTask(TaskRow task) throws IOException {
+        writer.write(toEvent(task).toString());
+    }
+
+    void writeFooter() throws IOException {
+        writer.write("END:VCALENDAR\r\n");
+        writer.flush();
+    }
+
+    private static VEvent toEvent(TaskRow task) {
+        VEvent vEvent = new VEvent();
+
+        // Set summary (description)
+        vEvent.getProperties().add(new Summary(task.description()));
+
+        // Set start date to creation date
+        vEvent.getProperties().add(new DtStart(new DateTime(Date.from(task.creationDate()))));
+
+        // Set due date if present, or use creation date + 1 day as end date
+        if (task.dueDate() != null) {
+            Date dueDate = Date.from(task.dueDate().atStartOfDay(ZoneId.systemDefault()).toInstant());
+            vEvent.getProperties().add(new DtEnd(new DateTime(dueDate)));
+        } else {
+            Date endDate = Date.from(task.creationDate().plusSeconds(86400)); // Add 24 hours
+            vEvent.getProperties().add(new DtEnd(new DateTime(endDate)));
+        }
+
+        // Importing the export again matches the tasks by UID; see TaskService.importTasks
+        // Tasks without a UID of their own are exported with their id, which is what they get as UID at startup
+        var uid = task.icalUid() != null ? task.icalUid() : String.valueOf(task.id());
+        vEvent.getProperties().add(new Uid(uid));
+        return vEvent;
+    }
+}
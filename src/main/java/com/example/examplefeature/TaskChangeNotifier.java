@@ -0,0 +1,86 @@
+package com.example.examplefeature;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import com.vaadin.flow.shared.Registration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Tells interested parties, typically open views in all sessions, about committed task changes. Changes are collected
+ * and delivered at most once per interval, so that a burst of writes such as a bulk import results in a single
+ * notification instead of one per task.
+ */
+@Component
+public class TaskChangeNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskChangeNotifier.class);
+
+    // Beyond this, listeners are better off reloading everything than refreshing task by task
+    private static final int MAX_UPDATED_TASKS = 100;
+
+    private final TaskRepository taskRepository;
+    private final List<Consumer<TaskChanges>> listeners = new CopyOnWriteArrayList<>();
+
+    private Set<Long> createdIds = new HashSet<>();
+    private Set<Long> deletedIds = new HashSet<>();
+    private Set<Long> updatedIds = new HashSet<>();
+
+    TaskChangeNotifier(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * Registers a listener for task changes. Listeners are called from a background thread.
+     */
+    public Registration addListener(Consumer<TaskChanges> listener) {
+        return Registration.addAndRemove(listeners, listener);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    synchronized void onTaskChanged(TaskChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> createdIds.addAll(event.taskIds());
+            case UPDATED -> updatedIds.addAll(event.taskIds());
+            case DELETED -> deletedIds.addAll(event.taskIds());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.tasks.change-notification-interval-ms:250}")
+    void notifyListeners() {
+        TaskChanges changes;
+        synchronized (this) {
+            if (createdIds.isEmpty() && deletedIds.isEmpty() && updatedIds.isEmpty()) {
+                return;
+            }
+            updatedIds.removeAll(createdIds);
+            updatedIds.removeAll(deletedIds);
+            changes = new TaskChanges(createdIds, deletedIds, updatedIds, List.of());
+            createdIds = new HashSet<>();
+            deletedIds = new HashSet<>();
+            updatedIds = new HashSet<>();
+        }
+        if (listeners.isEmpty()) {
+            return;
+        }
+        if (!changes.updatedIds().isEmpty() && changes.updatedIds().size() <= MAX_UPDATED_TASKS) {
+            // Loaded once here rather than by every listener
+            changes = new TaskChanges(changes.createdIds(), changes.deletedIds(), changes.updatedIds(),
+                    taskRepository.findRowsByIdIn(changes.updatedIds()));
+        }
+        for (var listener : listeners) {
+            try {
+                listener.accept(changes);
+            } catch (RuntimeException ex) {
+                log.warn("Task change listener failed", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.examplefeature;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Published by {@link TaskService} inside the transaction that changes the tasks. The count changes tell how the
+ * number of tasks per due date and done state changed, so that {@link TaskStatistics} of other instances can follow
+ * without counting all tasks again. They are {@code null} if they are not known.
+ */
+public record TaskChangedEvent(Type type, Set<Long> taskIds, @Nullable List<TaskCountByDueDate> countChanges) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public TaskChangedEvent(Type type, Collection<Long> taskIds) {
+        this(type, Set.copyOf(taskIds), null);
+    }
+
+    public TaskChangedEvent(Type type, Collection<Long> taskIds, List<TaskCountByDueDate> countChanges) {
+        this(type, Set.copyOf(taskIds), List.copyOf(countChanges));
+    }
+}
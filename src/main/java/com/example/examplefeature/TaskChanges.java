@@ -0,0 +1,26 @@
+package com.example.examplefeature;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The task changes committed since the previous notification, as delivered by {@link TaskChangeNotifier}. Updated
+ * tasks are included in their new state, unless there were too many of them to be worth loading.
+ */
+public record TaskChanges(Set<Long> createdIds, Set<Long> deletedIds, Set<Long> updatedIds,
+                          List<TaskRow> updatedTasks) {
+
+    /**
+     * Returns whether tasks were added or removed, meaning that lists of tasks have to be reloaded as a whole.
+     */
+    public boolean sizeChanged() {
+        return !createdIds.isEmpty() || !deletedIds.isEmpty();
+    }
+
+    /**
+     * Returns whether the updated tasks were left out because there were too many of them.
+     */
+    public boolean updatedTasksOmitted() {
+        return updatedTasks.size() < updatedIds.size();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.examplefeature;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The number of tasks with the same due date and done state, as read by {@link TaskStatistics} when it rebuilds its
+ * counts, or the change in that number made by a {@link TaskChangedEvent}.
+ */
+public record TaskCountByDueDate(@Nullable LocalDate dueDate, boolean done, long count) {
+
+    /**
+     * Returns how the number of tasks per due date and done state changes when the tasks go from their state before to
+     * their state after. Tasks that have been created are only in {@code after}, tasks that have been removed only in
+     * {@code before}. Changes that cancel each other out are left out.
+     */
+    static List<TaskCountByDueDate> changes(Collection<TaskRow> before, Collection<TaskRow> after) {
+        var changes = new LinkedHashMap<Key, Long>();
+        before.forEach(task -> changes.merge(new Key(task.dueDate(), task.done()), -1L, Long::sum));
+        after.forEach(task -> changes.merge(new Key(task.dueDate(), task.done()), 1L, Long::sum));
+        var result = new ArrayList<TaskCountByDueDate>(changes.size());
+        for (Map.Entry<Key, Long> change : changes.entrySet()) {
+            if (change.getValue() != 0) {
+                result.add(new TaskCountByDueDate(change.getKey().dueDate(), change.getKey().done(), change.getValue()));
+            }
+        }
+        return result;
+    }
+
+    private record Key(@Nullable LocalDate dueDate, boolean done) {
+    }
+}
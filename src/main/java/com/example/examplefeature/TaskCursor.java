@@ -0,0 +1,14 @@
+package com.example.examplefeature;
+
+import java.time.Instant;
+
+/**
+ * Position of a task in creation order, used to fetch the tasks that come after it without skipping over the ones
+ * before it.
+ */
+public record TaskCursor(Instant creationDate, Long id) {
+
+    public static TaskCursor of(TaskRow task) {
+        return new TaskCursor(task.creationDate(), task.id());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.examplefeature;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects changes to the done state of tasks and writes them to the database at most once per interval. Repeated
+ * changes to the same task by the same requester within an interval are coalesced into one, and all changes of an
+ * interval are written in a single transaction, so the write load does not grow with how fast users tick through their
+ * lists. A change by another requester that would undo a pending one is rejected like any other conflict.
+ * <p>
+ * Every change is based on the version of the task the user saw. If the task has been changed by someone else in the
+ * meantime, the change is not written and its result fails with an {@link OptimisticLockingFailureException}. When
+ * such a change only shows up while the transaction is written, the changes are written again one task at a time, so
+ * the other changes of the interval are not lost with it.
+ * </p>
+ */
+@Component
+public class TaskDoneWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskDoneWriter.class);
+
+    private final TaskService taskService;
+
+    private Map<Long, PendingChange> pendingChanges = new HashMap<>();
+
+    TaskDoneWriter(TaskService taskService) {
+        this.taskService = taskService;
+    }
+
+    /**
+     * Marks the given task as done or not done with the next write, on behalf of the given requester, such as the UI
+     * the change was made in. The returned future completes with the task as written, or fails if the task has been
+     * changed or removed since the given row was read, or if another requester changes it the other way in the same
+     * interval.
+     */
+    public synchronized CompletableFuture<TaskRow> setDone(TaskRow task, boolean done, Object requester) {
+        var result = new CompletableFuture<TaskRow>();
+        var pending = pendingChanges.get(task.id());
+        if (pending == null) {
+            pendingChanges.put(task.id(), new PendingChange(task.version(), done, requester, result));
+        } else if (pending.expectedVersion == task.version() && pending.requester.equals(requester)) {
+            // Repeated toggles of one requester: the last one wins, as it has seen the ones before
+            pending.done = done;
+            pending.results.add(result);
+        } else if (pending.expectedVersion == task.version() && pending.done == done) {
+            // Another requester wants the same, so neither overwrites the other
+            pending.results.add(result);
+        } else {
+            result.completeExceptionally(conflict(task.id()));
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${app.tasks.done-flush-interval-ms:200}",
+            initialDelayString = "${app.tasks.done-flush-interval-ms:200}")
+    void flush() {
+        Map<Long, PendingChange> changes;
+        synchronized (this) {
+            if (pendingChanges.isEmpty()) {
+                return;
+            }
+            changes = pendingChanges;
+            pendingChanges = new HashMap<>();
+        }
+        try {
+            complete(changes, write(changes));
+        } catch (OptimisticLockingFailureException ex) {
+            // A task changed between reading and writing it, which rolls back the whole batch. Written one by one,
+            // only the changes to such tasks are rejected.
+            if (changes.size() == 1) {
+                fail(changes, ex);
+                return;
+            }
+            log.debug("Writing done changes failed, writing them one task at a time", ex);
+            changes.forEach((taskId, change) -> {
+                var single = Map.of(taskId, change);
+                try {
+                    complete(single, write(single));
+                } catch (RuntimeException singleEx) {
+                    fail(single, singleEx);
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.debug("Writing done changes failed", ex);
+            fail(changes, ex);
+        }
+    }
+
+    private Map<Long, TaskRow> write(Map<Long, PendingChange> changes) {
+        var updates = new HashMap<Long, Update>(changes.size());
+        changes.forEach((taskId, change) -> updates.put(taskId, new Update(change.expectedVersion, change.done)));
+        return taskService.applyDoneUpdates(updates);
+    }
+
+    private static void complete(Map<Long, PendingChange> changes, Map<Long, TaskRow> written) {
+        changes.forEach((taskId, change) -> {
+            var task = written.get(taskId);
+            for (var result : change.results) {
+                if (task == null) {
+                    result.completeExceptionally(conflict(taskId));
+                } else {
+                    result.complete(task);
+                }
+            }
+        });
+    }
+
+    private static void fail(Map<Long, PendingChange> changes, RuntimeException ex) {
+        changes.values().forEach(change -> change.results.forEach(result -> result.completeExceptionally(ex)));
+    }
+
+    private static OptimisticLockingFailureException conflict(Long taskId) {
+        return new OptimisticLockingFailureException("Task " + taskId + " has been changed or removed");
+    }
+
+    /**
+     * The done state to write to a task, if the task is still at the expected version.
+     */
+    record Update(long expectedVersion, boolean done) {
+    }
+
+    private static final class PendingChange {
+
+        private final long expectedVersion;
+        private final Object requester;
+        private final List<CompletableFuture<TaskRow>> results = new ArrayList<>(1);
+        private boolean done;
+
+        private PendingChange(long expectedVersion, boolean done, Object requester,
+                              CompletableFuture<TaskRow> result) {
+            this.expectedVersion = expectedVersion;
+            this.done = done;
+            this.requester = requester;
+            results.add(result);
+        }
+    }
+}
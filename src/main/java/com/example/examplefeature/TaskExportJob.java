@@ -0,0 +1,102 @@
+package com.example.examplefeature;
+
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleConsumer;
+
+/**
+ * An export of all tasks to an iCalendar file, started by {@link TaskExporter}. The job either runs in the background
+ * or, when an export of the same data is already on disk, is complete from the start. Once the file is no longer
+ * needed, the job must be {@linkplain #release() released}.
+ */
+public final class TaskExportJob {
+
+    private final CompletableFuture<Path> result = new CompletableFuture<>();
+    private final DoubleConsumer progressListener;
+    private final boolean cached;
+    // Set when the job completes, and taken by whoever runs it first
+    private final AtomicReference<Runnable> releaseAction = new AtomicReference<>(NO_ACTION);
+    private volatile boolean released;
+    private volatile boolean cancelled;
+    private int reportedPercent = -1;
+
+    private static final Runnable NO_ACTION = () -> {
+    };
+
+    private TaskExportJob(DoubleConsumer progressListener, boolean cached) {
+        this.progressListener = progressListener;
+        this.cached = cached;
+    }
+
+    static TaskExportJob started(DoubleConsumer progressListener) {
+        return new TaskExportJob(progressListener, false);
+    }
+
+    static TaskExportJob cached(Path file, Runnable releaseAction) {
+        var job = new TaskExportJob(progress -> {
+        }, true);
+        job.complete(file, releaseAction);
+        return job;
+    }
+
+    /**
+     * Returns the exported file, which stays on disk until this job is released. The future fails with a
+     * {@link CancellationException} if the job is cancelled.
+     */
+    public CompletableFuture<Path> result() {
+        return result;
+    }
+
+    /**
+     * Returns whether the result was taken from an earlier export instead of being generated by this job.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Stops waiting for the export, and stops the export at the next batch of tasks unless other jobs still wait for
+     * it. Has no effect if the job is already complete.
+     */
+    public void cancel() {
+        cancelled = true;
+        result.cancel(false);
+    }
+
+    /**
+     * Tells that the exported file is no longer needed, so it can be deleted once a newer export has replaced it.
+     * Releasing a job more than once, or a job that did not complete, has no effect.
+     */
+    public void release() {
+        released = true;
+        releaseAction.getAndSet(NO_ACTION).run();
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Called from the job thread only
+    void reportProgress(long exported, long total) {
+        // Listeners typically update a UI, so they are only told about whole percents
+        int percent = total <= 0 ? 100 : (int) Math.min(100, exported * 100 / total);
+        if (percent > reportedPercent) {
+            reportedPercent = percent;
+            progressListener.accept(percent / 100.0);
+        }
+    }
+
+    // A job cancelled or released in the meantime never hands out the file, so it releases it right away
+    void complete(Path file, Runnable releaseAction) {
+        this.releaseAction.set(releaseAction);
+        if (!result.complete(file) || released) {
+            this.releaseAction.getAndSet(NO_ACTION).run();
+        }
+    }
+
+    void fail(Throwable error) {
+        result.completeExceptionally(error);
+    }
+}
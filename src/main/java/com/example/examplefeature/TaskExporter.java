@@ -0,0 +1,198 @@
+package com.example.examplefeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleConsumer;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Exports all tasks to iCalendar files in the background, and keeps the latest export on disk for as long as the
+ * tasks don't change.
+ * <p>
+ * Every committed {@link TaskChangedEvent} bumps a data version, and exports are stored under the version they were
+ * started at. Exporting again at the same version hands out the stored file instead of reading all tasks again, and
+ * while an export of the version is still running, joins it instead of starting another one. A running export is
+ * only stopped once every job that joined it has been cancelled.
+ * </p>
+ * <p>
+ * A file is only deleted once a newer export has completed and every job that handed the file out has been
+ * {@linkplain TaskExportJob#release() released}, so a file is never deleted while someone may still download it.
+ * </p>
+ */
+@Component
+public class TaskExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskExporter.class);
+
+    private final TaskService taskService;
+    private final TaskMetrics taskMetrics;
+    private final AsyncTaskExecutor jobExecutor;
+    private final Path artifactDirectory;
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    // The number of unreleased jobs that handed out each file, the newest version exported, and the jobs waiting for
+    // each running export by the file it writes, guarded by this
+    private final Map<Path, Integer> handedOut = new HashMap<>();
+    private long newestExportedVersion = -1;
+    private final Map<Path, List<TaskExportJob>> running = new HashMap<>();
+
+    TaskExporter(TaskService taskService, TaskMetrics taskMetrics,
+                 @Qualifier(TaskJobConfiguration.TASK_JOB_EXECUTOR) AsyncTaskExecutor jobExecutor) throws IOException {
+        this.taskService = taskService;
+        this.taskMetrics = taskMetrics;
+        this.jobExecutor = jobExecutor;
+        // The data version starts over with every run, so exports of earlier runs must not be reused
+        this.artifactDirectory = Files.createTempDirectory("task-exports-");
+    }
+
+    /**
+     * Starts an export of all tasks. The progress listener is called from a background thread with the exported
+     * fraction, between 0 and 1. If the tasks haven't changed since the last export, the returned job is already
+     * complete; if an export of the same tasks is running, the returned job completes with it.
+     */
+    public TaskExportJob startExport(DoubleConsumer progressListener) {
+        return startExport(false, progressListener);
+    }
+
+    /**
+     * Like {@link #startExport(DoubleConsumer)}, but with {@code includeArchived} also exports the tasks that have
+     * been archived, after all other tasks. Such exports are stored apart from those without the archive.
+     */
+    public TaskExportJob startExport(boolean includeArchived, DoubleConsumer progressListener) {
+        var version = dataVersion.get();
+        var artifact = artifactDirectory.resolve("tasks-" + version + (includeArchived ? "-archived" : "") + ".ics");
+        var job = TaskExportJob.started(progressListener);
+        List<TaskExportJob> jobs;
+        synchronized (this) {
+            // Files are only deleted under this lock, and never the one of the current version
+            if (Files.exists(artifact)) {
+                taskMetrics.recordExportJob("cached");
+                return TaskExportJob.cached(artifact, handOut(artifact));
+            }
+            var joined = running.get(artifact);
+            if (joined != null) {
+                joined.add(job);
+                taskMetrics.recordExportJob("joined");
+                return job;
+            }
+            jobs = new CopyOnWriteArrayList<>(List.of(job));
+            running.put(artifact, jobs);
+        }
+        jobExecutor.execute(() -> {
+            try {
+                export(includeArchived, jobs, artifact);
+                synchronized (this) {
+                    running.remove(artifact);
+                    newestExportedVersion = Math.max(newestExportedVersion, version);
+                    // Every job hands out the file on its own; one that has been released or cancelled gives it back
+                    jobs.forEach(waiting -> waiting.complete(artifact, handOut(artifact)));
+                    deleteUnusedArtifacts();
+                }
+                taskMetrics.recordExportJob("completed");
+            } catch (CancellationException e) {
+                taskMetrics.recordExportJob("cancelled");
+                jobs.forEach(waiting -> waiting.fail(e));
+            } catch (IOException | RuntimeException e) {
+                log.error("Exporting tasks failed", e);
+                synchronized (this) {
+                    running.remove(artifact);
+                }
+                taskMetrics.recordExportJob("failed");
+                jobs.forEach(waiting -> waiting.fail(e));
+            }
+        });
+        return job;
+    }
+
+    private void export(boolean includeArchived, List<TaskExportJob> jobs, Path artifact) throws IOException {
+        var total = includeArchived ? taskService.count() + taskService.countArchived() : taskService.count();
+        // Written under another name first, so that an export is never handed out before it is complete
+        var partial = Files.createTempFile(artifactDirectory, "tasks-", ".part");
+        try {
+            try (var out = Files.newOutputStream(partial)) {
+                taskService.exportTasksToIcs(out, includeArchived,
+                        exported -> reportProgress(artifact, jobs, exported, total));
+            }
+            Files.move(partial, artifact, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    // Stops the export once all the jobs waiting for it have been cancelled. Jobs started later start another export.
+    private void reportProgress(Path artifact, List<TaskExportJob> jobs, long exported, long total) {
+        for (var job : jobs) {
+            if (!job.isCancelled()) {
+                job.reportProgress(exported, total);
+            }
+        }
+        synchronized (this) {
+            if (jobs.stream().allMatch(TaskExportJob::isCancelled)) {
+                running.remove(artifact);
+                throw new CancellationException("Export cancelled");
+            }
+        }
+    }
+
+    // Called with the lock held
+    private Runnable handOut(Path artifact) {
+        handedOut.merge(artifact, 1, Integer::sum);
+        return () -> release(artifact);
+    }
+
+    private synchronized void release(Path artifact) {
+        if (handedOut.merge(artifact, -1, Integer::sum) == 0) {
+            handedOut.remove(artifact);
+            deleteUnusedArtifacts();
+        }
+    }
+
+    // Called with the lock held. Deletes the files older than the newest export that nobody holds any more.
+    private void deleteUnusedArtifacts() {
+        try (var artifacts = Files.newDirectoryStream(artifactDirectory, "tasks-*.ics")) {
+            for (Path artifact : artifacts) {
+                if (versionOf(artifact) < newestExportedVersion && !handedOut.containsKey(artifact)) {
+                    Files.deleteIfExists(artifact);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete outdated task exports", e);
+        }
+    }
+
+    // Files are named tasks-<version>.ics, or tasks-<version>-archived.ics with the archive
+    private static long versionOf(Path artifact) {
+        var name = artifact.getFileName().toString();
+        int end = "tasks-".length();
+        while (Character.isDigit(name.charAt(end))) {
+            end++;
+        }
+        return Long.parseLong(name.substring("tasks-".length(), end));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTaskChanged(TaskChangedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    @PreDestroy
+    void deleteArtifacts() throws IOException {
+        FileSystemUtils.deleteRecursively(artifactDirectory);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.examplefeature;
+
+import org.jspecify.annotations.Nullable;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria for {@link TaskService#search(TaskFilter, org.springframework.data.domain.Pageable)}. Criteria that are
+ * {@code null} don't restrict the result.
+ *
+ * @param text            words that must all occur in the description; the last one may be incomplete
+ * @param done            whether the tasks must be done or not done
+ * @param dueFrom         earliest due date, inclusive
+ * @param dueTo           latest due date, inclusive
+ * @param priority        priority the tasks must currently have
+ * @param includeArchived whether tasks that have been moved to the archive are searched as well
+ */
+public record TaskFilter(@Nullable String text, @Nullable Boolean done, @Nullable LocalDate dueFrom,
+                         @Nullable LocalDate dueTo, Task.@Nullable Priority priority, boolean includeArchived) {
+
+    public static final TaskFilter NONE = new TaskFilter(null, null, null, null, null);
+
+    public TaskFilter(@Nullable String text, @Nullable Boolean done, @Nullable LocalDate dueFrom,
+                      @Nullable LocalDate dueTo, Task.@Nullable Priority priority) {
+        this(text, done, dueFrom, dueTo, priority, false);
+    }
+
+    public boolean hasText() {
+        return text != null && !text.isBlank();
+    }
+
+    public boolean isEmpty() {
+        return !hasText() && done == null && dueFrom == null && dueTo == null && priority == null
+                && !includeArchived;
+    }
+
+    /**
+     * Returns whether the given task meets the criteria other than the text. Must be kept in line with
+     * {@link TaskSpecifications#matching(TaskFilter)}.
+     */
+    boolean matchesCriteria(TaskRow task) {
+        var dueDate = task.dueDate();
+        return (done == null || done == task.done())
+                && (dueFrom == null || dueDate != null && !dueDate.isBefore(dueFrom))
+                && (dueTo == null || dueDate != null && !dueDate.isAfter(dueTo))
+                && (priority == null || priority == task.priority());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.examplefeature;
+
+/**
+ * Number of tasks an import created, and number of existing tasks it changed.
+ */
+public record TaskImportResult(int created, int updated) {
+
+    static final TaskImportResult NONE = new TaskImportResult(0, 0);
+
+    TaskImportResult plus(TaskImportResult other) {
+        return new TaskImportResult(created + other.created, updated + other.updated);
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.examplefeature;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import net.fortuna.ical4j.data.CalendarParserImpl;
+import net.fortuna.ical4j.data.ContentHandler;
+import net.fortuna.ical4j.data.ParserException;
+import net.fortuna.ical4j.data.UnfoldingReader;
+import net.fortuna.ical4j.model.Parameter;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.parameter.Value;
+import org.jspecify.annotations.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports tasks from iCalendar files. Every {@code VEVENT} becomes a task with the {@code SUMMARY} as description and
+ * the last day of the event, as given by {@code DTEND}, as due date. Events with a {@code UID} update the task imported from the same event
+ * earlier, if there is one.
+ * <p>
+ * The file is parsed as a stream of properties, without building a calendar model, and the tasks are stored in
+ * batches of one transaction each, so memory use does not depend on the size of the file.
+ * </p>
+ */
+@Component
+public class TaskImporter {
+
+    private static final int IMPORT_BATCH_SIZE = 500;
+    private static final String VEVENT = net.fortuna.ical4j.model.Component.VEVENT;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private final TaskService taskService;
+
+    TaskImporter(TaskService taskService) {
+        this.taskService = taskService;
+    }
+
+    /**
+     * Imports the events of the given iCalendar document. If the document turns out to be invalid, the tasks of the
+     * batches stored before the error are kept.
+     *
+     * @throws IllegalArgumentException if the document is not valid iCalendar
+     */
+    public TaskImportResult importTasks(InputStream in) throws IOException {
+        var handler = new EventHandler();
+        var reader = new UnfoldingReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        try {
+            new CalendarParserImpl().parse(reader, handler);
+        } catch (ParserException e) {
+            throw new IllegalArgumentException("Invalid iCalendar file: " + e.getMessage(), e);
+        }
+        handler.storeBatch();
+        return handler.result;
+    }
+
+    /**
+     * Collects the properties of top-level events, and stores them as tasks whenever a batch is full.
+     */
+    private final class EventHandler implements ContentHandler {
+
+        private final List<ImportedTask> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private TaskImportResult result = TaskImportResult.NONE;
+
+        private boolean inEvent;
+        private int nestedComponents; // Such as alarms, whose properties must not be mistaken for the event's
+        private @Nullable String property;
+        private @Nullable String uid;
+        private @Nullable String summary;
+        private @Nullable String dtEnd;
+        private boolean dtEndIsDate;
+
+        @Override
+        public void startCalendar() {
+        }
+
+        @Override
+        public void endCalendar() {
+        }
+
+        @Override
+        public void startComponent(String name) {
+            if (inEvent) {
+                nestedComponents++;
+            } else if (VEVENT.equalsIgnoreCase(name)) {
+                inEvent = true;
+                uid = null;
+                summary = null;
+                dtEnd = null;
+                dtEndIsDate = false;
+            }
+        }
+
+        @Override
+        public void endComponent(String name) {
+            if (!inEvent) {
+                return;
+            }
+            if (nestedComponents > 0) {
+                nestedComponents--;
+                return;
+            }
+            inEvent = false;
+            var description = summary == null ? "" : unescape(summary);
+            if (description.length() > Task.DESCRIPTION_MAX_LENGTH) {
+                description = description.substring(0, Task.DESCRIPTION_MAX_LENGTH);
+            }
+            batch.add(new ImportedTask(uid, description, dtEnd == null ? null : dueDate(dtEnd, dtEndIsDate)));
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                storeBatch();
+            }
+        }
+
+        @Override
+        public void startProperty(String name) {
+            property = inEvent && nestedComponents == 0 ? name.toUpperCase(Locale.ROOT) : null;
+        }
+
+        @Override
+        public void parameter(String name, String value) {
+            if (Property.DTEND.equals(property) && Parameter.VALUE.equalsIgnoreCase(name)) {
+                dtEndIsDate = Value.DATE.getValue().equalsIgnoreCase(value);
+            }
+        }
+
+        @Override
+        public void propertyValue(String value) {
+            if (property != null) {
+                switch (property) {
+                    case Property.UID -> uid = value;
+                    case Property.SUMMARY -> summary = value;
+                    case Property.DTEND -> dtEnd = value;
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void endProperty(String name) {
+            property = null;
+        }
+
+        void storeBatch() {
+            if (!batch.isEmpty()) {
+                result = result.plus(taskService.importTasks(List.copyOf(batch)));
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the last day of an event ending at the given {@code DTEND} value, or {@code null} if it can't be parsed.
+     * A {@code DATE} end is exclusive (RFC 5545, section 3.6.1), so an all-day event on the 7th ends on the 8th.
+     */
+    static @Nullable LocalDate dueDate(String dtEnd, boolean isDate) {
+        var date = parseDate(dtEnd, isDate);
+        return date != null && isDate(dtEnd, isDate) ? date.minusDays(1) : date;
+    }
+
+    /**
+     * Returns the date of a {@code DATE} or {@code DATE-TIME} value, or {@code null} if it can't be parsed. UTC times
+     * are converted to the local date; local and floating times are taken as they are.
+     */
+    static @Nullable LocalDate parseDate(String value, boolean isDate) {
+        try {
+            if (isDate(value, isDate)) {
+                return LocalDate.parse(value, DateTimeFormatter.BASIC_ISO_DATE);
+            }
+            if (value.endsWith("Z")) {
+                return LocalDateTime.parse(value.substring(0, value.length() - 1), DATE_TIME)
+                        .atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDate();
+            }
+            return LocalDateTime.parse(value, DATE_TIME).toLocalDate();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // Some writers leave out VALUE=DATE, but a value without a time is a date all the same
+    private static boolean isDate(String value, boolean isDate) {
+        return isDate || value.length() == 8;
+    }
+
+    // Undoes the escaping of TEXT values (RFC 5545, section 3.3.11). Line breaks become spaces.
+    static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        var unescaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                unescaped.append(next == 'n' || next == 'N' ? ' ' : next);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.examplefeature;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+@Configuration
+class TaskJobConfiguration {
+
+    static final String TASK_JOB_EXECUTOR = "taskJobExecutor";
+
+    private static final String THREAD_NAME_PREFIX = "task-job-";
+
+    /**
+     * Runs exports and other long, mostly blocking task jobs away from the request threads. When virtual threads are
+     * enabled ({@code spring.threads.virtual.enabled=true}), every job gets its own virtual thread and the connection
+     * pool is what limits concurrent database work. Otherwise, jobs share a small pool of platform threads.
+     * <p>
+     * The executor is not a default candidate, so it does not replace the application task executor that Spring Boot
+     * configures for everything else.
+     * </p>
+     */
+    @Bean(name = TASK_JOB_EXECUTOR, defaultCandidate = false)
+    AsyncTaskExecutor taskJobExecutor(Environment environment, SimpleAsyncTaskExecutorBuilder virtualThreadBuilder,
+                                      ThreadPoolTaskExecutorBuilder platformThreadBuilder,
+                                      @Value("${app.tasks.jobs.pool-size:4}") int poolSize) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualThreadBuilder.virtualThreads(true).threadNamePrefix(THREAD_NAME_PREFIX).build();
+        }
+        return platformThreadBuilder.corePoolSize(poolSize).maxPoolSize(poolSize)
+                .threadNamePrefix(THREAD_NAME_PREFIX).build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.examplefeature;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of the task subsystem that can't be expressed with {@code @Timed}: the size of results and exports, and
+ * the time spent in grid callbacks.
+ */
+@Component
+public class TaskMetrics {
+
+    private final MeterRegistry registry;
+    private final DistributionSummary exportedBytes;
+
+    TaskMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.exportedBytes = DistributionSummary.builder("task.export.size")
+                .description("Size of the exported iCalendar documents")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    <T> List<T> recordRows(String operation, List<T> rows) {
+        DistributionSummary.builder("task.service.rows")
+                .description("Number of tasks returned by a TaskService operation")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(rows.size());
+        return rows;
+    }
+
+    void recordExportedBytes(long bytes) {
+        exportedBytes.record(bytes);
+    }
+
+    void recordExportJob(String outcome) {
+        registry.counter("task.export.jobs", "outcome", outcome).increment();
+    }
+
+    /**
+     * Times a data provider callback of a view's grid.
+     */
+    public <T> T timeGridCallback(String view, String callback, Supplier<T> action) {
+        return Timer.builder("task.grid.callback")
+                .description("Time spent in the data provider callbacks of task grids")
+                .tags("view", view, "callback", callback)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(action);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.examplefeature;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.commons.collections4.ListUtils;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Propagates task changes between instances of the application that share a database, without a message broker.
+ * <p>
+ * Every {@link TaskChangedEvent} is written to the {@code task_outbox} table in the transaction that made the change,
+ * so an event is recorded if and only if the change is committed. Every instance polls the table for events written
+ * by other instances, evicts the changed tasks from its second-level cache, and publishes the events locally, where
+ * they reach the same listeners as local changes. Events carry how the task counts changed, so that the
+ * {@link TaskStatistics} of every instance follow without counting the tasks again.
+ * </p>
+ * <p>
+ * Each instance keeps its own watermark: the id up to which it has seen every event. Event ids are taken from a
+ * sequence when the event is written, but become visible when the transaction commits, which may be out of order. Ids
+ * above the watermark that have been seen are remembered, and a gap in the ids only moves the watermark once it has
+ * stayed open for a grace period, i.e. once the transaction that took the missing id has evidently been rolled back.
+ * </p>
+ */
+@Component
+class TaskOutbox {
+
+    // Larger changes, such as bulk imports, are written as several events
+    static final int MAX_IDS_PER_EVENT = 400;
+
+    private static final int POLL_BATCH_SIZE = 500;
+    private static final Duration GAP_GRACE_PERIOD = Duration.ofSeconds(10);
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final TaskOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskService taskService;
+    private final TaskStatistics taskStatistics;
+    private final TaskReminders taskReminders;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Duration retention;
+
+    // Every event up to this id has been seen, or -1 until the first poll
+    private long watermark = -1;
+    private final NavigableSet<Long> seenAboveWatermark = new TreeSet<>();
+    private @Nullable Instant gapSince;
+    // The generation of the statistics before the last poll that read every event visible at the time. The events
+    // read by the next poll were committed after that.
+    private long statisticsGeneration;
+
+    TaskOutbox(TaskOutboxRepository outboxRepository, ApplicationEventPublisher eventPublisher, TaskService taskService,
+               TaskStatistics taskStatistics, TaskReminders taskReminders, EntityManagerFactory entityManagerFactory,
+               @Value("${app.tasks.outbox.retention-minutes:60}") int retentionMinutes) {
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.taskService = taskService;
+        this.taskStatistics = taskStatistics;
+        this.taskReminders = taskReminders;
+        this.entityManagerFactory = entityManagerFactory;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    void onTaskChanged(TaskChangedEvent event) {
+        var createdAt = Instant.now();
+        var events = new ArrayList<TaskOutboxEvent>();
+        for (List<Long> ids : ListUtils.partition(List.copyOf(event.taskIds()), MAX_IDS_PER_EVENT)) {
+            // The first chunk carries all of the count changes
+            var countChanges = events.isEmpty() || event.countChanges() == null
+                    ? event.countChanges() : List.<TaskCountByDueDate>of();
+            events.add(new TaskOutboxEvent(instanceId, event.type(), ids, countChanges, createdAt));
+        }
+        outboxRepository.saveAll(events);
+    }
+
+    @Scheduled(fixedDelayString = "${app.tasks.outbox.poll-interval-ms:200}",
+            initialDelayString = "${app.tasks.outbox.poll-interval-ms:200}")
+    synchronized void poll() {
+        var generation = taskStatistics.generation();
+        if (watermark < 0) {
+            // Earlier changes are already in the database this instance reads from
+            watermark = outboxRepository.findLastId();
+            statisticsGeneration = generation;
+            return;
+        }
+        var received = new ArrayList<TaskChangedEvent>();
+        var events = outboxRepository.findAfter(watermark, Limit.of(POLL_BATCH_SIZE));
+        for (TaskOutboxEvent event : events) {
+            if (seenAboveWatermark.add(event.getId()) && !instanceId.equals(event.getInstanceId())) {
+                received.add(event.toChangedEvent());
+            }
+        }
+        advanceWatermark();
+        var receivedSince = statisticsGeneration;
+        if (events.size() < POLL_BATCH_SIZE) {
+            statisticsGeneration = generation;
+        }
+        if (received.isEmpty()) {
+            return;
+        }
+        evictFromCache(received);
+        if (received.stream().anyMatch(event -> event.type() != TaskChangedEvent.Type.UPDATED)) {
+            taskService.forgetCount();
+        }
+        for (TaskChangedEvent event : received) {
+            if (event.countChanges() == null) {
+                taskStatistics.invalidate();
+            } else {
+                taskStatistics.record(receivedSince, event.countChanges());
+            }
+        }
+        received.stream().filter(event -> event.type() != TaskChangedEvent.Type.DELETED)
+                .forEach(event -> taskReminders.addChangedElsewhere(event.taskIds()));
+        received.forEach(eventPublisher::publishEvent);
+    }
+
+    private void advanceWatermark() {
+        while (!seenAboveWatermark.isEmpty()) {
+            if (seenAboveWatermark.first() == watermark + 1) {
+                seenAboveWatermark.pollFirst();
+                watermark++;
+                gapSince = null;
+            } else if (gapSince == null) {
+                gapSince = Instant.now();
+                return;
+            } else if (gapSince.isBefore(Instant.now().minus(GAP_GRACE_PERIOD))) {
+                watermark = seenAboveWatermark.first() - 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // The second-level cache of this instance does not notice writes made by other instances
+    private void evictFromCache(List<TaskChangedEvent> events) {
+        var cache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+        events.forEach(event -> event.taskIds().forEach(id -> cache.evictEntityData(Task.class, id)));
+        cache.evictQueryRegions();
+    }
+
+    @Scheduled(fixedDelayString = "${app.tasks.outbox.cleanup-interval-ms:60000}")
+    void deleteOldEvents() {
+        outboxRepository.deleteCreatedBefore(Instant.now().minus(retention));
+    }
+
+    String getInstanceId() {
+        return instanceId;
+    }
+
+    synchronized long getWatermark() {
+        return watermark;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.examplefeature;
+
+import jakarta.persistence.*;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link TaskChangedEvent} as recorded in the {@code task_outbox} table by {@link TaskOutbox}, in the transaction
+ * that made the change, so that other instances of the application sharing the database learn about it.
+ */
+@Entity
+@Table(name = "task_outbox", indexes = @Index(name = "task_outbox_created_at_idx", columnList = "created_at"))
+class TaskOutboxEvent {
+
+    // Enough for the ids of a chunk of TaskOutbox.MAX_IDS_PER_EVENT tasks, separated by commas
+    static final int TASK_IDS_MAX_LENGTH = 8000;
+
+    // Count changes that don't fit are left out, and the instances receiving the event count the tasks again
+    static final int COUNT_CHANGES_MAX_LENGTH = 8000;
+
+    // Not pooled, so that ids are handed out in the order the events are written, whichever instance writes them
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_outbox_seq")
+    @SequenceGenerator(name = "task_outbox_seq", sequenceName = "task_outbox_seq", allocationSize = 1)
+    @Column(name = "event_id")
+    private Long id;
+
+    @Column(name = "instance_id", nullable = false, length = 36)
+    private String instanceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 10)
+    private TaskChangedEvent.Type type;
+
+    @Column(name = "task_ids", nullable = false, length = TASK_IDS_MAX_LENGTH)
+    private String taskIds;
+
+    // Due date, done state and change of the count, separated by colons, for every change, separated by commas
+    @Column(name = "count_changes", length = COUNT_CHANGES_MAX_LENGTH)
+    private @Nullable String countChanges;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    protected TaskOutboxEvent() { // To keep Hibernate happy
+    }
+
+    TaskOutboxEvent(String instanceId, TaskChangedEvent.Type type, Collection<Long> taskIds, Instant createdAt) {
+        this.instanceId = instanceId;
+        this.type = type;
+        this.taskIds = taskIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        this.createdAt = createdAt;
+    }
+
+    TaskOutboxEvent(String instanceId, TaskChangedEvent.Type type, Collection<Long> taskIds,
+                    @Nullable List<TaskCountByDueDate> countChanges, Instant createdAt) {
+        this(instanceId, type, taskIds, createdAt);
+        if (countChanges != null) {
+            var encoded = countChanges.stream()
+                    .map(change -> (change.dueDate() == null ? "" : change.dueDate().toString()) + ":"
+                            + change.done() + ":" + change.count())
+                    .collect(Collectors.joining(","));
+            this.countChanges = encoded.length() <= COUNT_CHANGES_MAX_LENGTH ? encoded : null;
+        }
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    String getInstanceId() {
+        return instanceId;
+    }
+
+    TaskChangedEvent toChangedEvent() {
+        List<Long> ids = Arrays.stream(taskIds.split(",")).map(Long::valueOf).toList();
+        if (countChanges == null) {
+            return new TaskChangedEvent(type, ids);
+        }
+        return new TaskChangedEvent(type, ids, countChanges.isEmpty() ? List.of()
+                : Arrays.stream(countChanges.split(",")).map(TaskOutboxEvent::decodeCountChange).toList());
+    }
+
+    private static TaskCountByDueDate decodeCountChange(String change) {
+        var fields = change.split(":", -1);
+        var dueDate = fields[0].isEmpty() ? null : LocalDate.parse(fields[0]);
+        return new TaskCountByDueDate(dueDate, Boolean.parseBoolean(fields[1]), Long.parseLong(fields[2]));
+    }
+}
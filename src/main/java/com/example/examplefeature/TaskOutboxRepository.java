@@ -0,0 +1,25 @@
+package com.example.examplefeature;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+interface TaskOutboxRepository extends JpaRepository<TaskOutboxEvent, Long> {
+
+    // Served from the primary key index, so polling costs the same however many events are kept
+    @Query("select e from TaskOutboxEvent e where e.id > :id order by e.id asc")
+    List<TaskOutboxEvent> findAfter(long id, Limit limit);
+
+    @Query("select coalesce(max(e.id), 0) from TaskOutboxEvent e")
+    long findLastId();
+
+    @Transactional
+    @Modifying
+    @Query("delete from TaskOutboxEvent e where e.createdAt < :createdAt")
+    int deleteCreatedBefore(Instant createdAt);
+}
@@ -0,0 +1,25 @@
+package com.example.examplefeature;
+
+/**
+ * Tells that a task that is not done has become more urgent, as delivered by {@link TaskReminders}.
+ *
+ * @param task the task, as it is now
+ * @param type what happened to the task
+ */
+public record TaskReminder(TaskRow task, Type type) {
+
+    public enum Type {
+        /**
+         * The task is now of {@link Task.Priority#MEDIUM} priority.
+         */
+        MEDIUM_PRIORITY,
+        /**
+         * The task is now of {@link Task.Priority#HIGH} priority.
+         */
+        HIGH_PRIORITY,
+        /**
+         * The due date of the task has passed.
+         */
+        OVERDUE
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.examplefeature;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import com.vaadin.flow.shared.Registration;
+import org.apache.commons.collections4.ListUtils;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reminds interested parties, typically open views in all sessions, when tasks become of medium or high priority or
+ * overdue, without scanning all tasks every day.
+ * <p>
+ * The ids of the tasks that are not done are kept in buckets by due date (as an epoch day). A task due on day D
+ * becomes {@link Task.Priority#MEDIUM} on day D - 5, {@link Task.Priority#HIGH} on day D - 2 and overdue on day D + 1,
+ * so when a day begins, only the tasks of three buckets are due for a reminder. Buckets are loaded once at startup,
+ * when the reminders of the current day are fired, and then only added to: by {@link TaskService} with the tasks it
+ * has written, and by {@link TaskOutbox} with the tasks changed by other instances. Tasks that have been done, removed
+ * or moved to another date since are filtered out when their bucket fires, by reading the tasks of the firing buckets
+ * again.
+ * </p>
+ */
+@Component
+public class TaskReminders {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskReminders.class);
+
+    // Keeps IN lists within what every database accepts
+    private static final int MAX_IDS_PER_STATEMENT = 1000;
+
+    private static final int MEDIUM_PRIORITY_DAYS_BEFORE = 5;
+    private static final int HIGH_PRIORITY_DAYS_BEFORE = 2;
+    private static final int OVERDUE_DAYS_AFTER = 1;
+
+    private final TaskRepository taskRepository;
+    private final List<Consumer<List<TaskReminder>>> listeners = new CopyOnWriteArrayList<>();
+
+    // Task ids by due date, guarded by this. Buckets are dropped once their last reminder has fired.
+    private final NavigableMap<Long, Set<Long>> idsByDueDay = new TreeMap<>();
+    // The last day reminders have been fired for, or -1 until the buckets have been loaded
+    private long firedDay = -1;
+    // The reminders of the last day that had any, for listeners added during that day. Both are guarded by this.
+    private List<TaskReminder> lastReminders = List.of();
+    private long lastRemindersDay = -1;
+
+    TaskReminders(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * Registers a listener for reminders. Listeners are called from a background thread, once per day with all the
+     * reminders of the day. A listener added on a day that has reminders is called with them right away, from the
+     * calling thread, so that sessions opened later in the day get them too.
+     */
+    public Registration addListener(Consumer<List<TaskReminder>> listener) {
+        Registration registration;
+        List<TaskReminder> reminders;
+        // Together with fire(long), makes sure the listener gets the reminders of a day exactly once
+        synchronized (this) {
+            registration = Registration.addAndRemove(listeners, listener);
+            reminders = lastRemindersDay == DailyClock.today() ? lastReminders : List.of();
+        }
+        if (!reminders.isEmpty()) {
+            listener.accept(reminders);
+        }
+        return registration;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        var today = DailyClock.today();
+        synchronized (this) {
+            // Tasks due before yesterday have had all their reminders; tasks due yesterday become overdue today
+            var tasks = taskRepository.findOpenRowsDueFrom(LocalDate.ofEpochDay(today - OVERDUE_DAYS_AFTER));
+            add(tasks);
+            firedDay = today;
+            log.info("Task reminders loaded for {} tasks", tasks.size());
+        }
+        // No session is open yet; the reminders are kept for the sessions that are opened during the day
+        fire(today);
+    }
+
+    /**
+     * Adds the given tasks, as they are after a committed change, to the buckets of their due dates. Done and removed
+     * tasks stay in their bucket until it fires; see {@link #fire(long)}.
+     */
+    synchronized void add(Collection<TaskRow> tasks) {
+        for (TaskRow task : tasks) {
+            if (!task.done() && task.dueDate() != null) {
+                idsByDueDay.computeIfAbsent(task.dueDate().toEpochDay(), day -> new HashSet<>()).add(task.id());
+            }
+        }
+    }
+
+    /**
+     * Adds the given tasks, which have been changed by another instance, by reading them.
+     */
+    void addChangedElsewhere(Collection<Long> taskIds) {
+        var tasks = new ArrayList<TaskRow>();
+        for (List<Long> ids : ListUtils.partition(List.copyOf(taskIds), MAX_IDS_PER_STATEMENT)) {
+            tasks.addAll(taskRepository.findRowsByIdIn(ids));
+        }
+        add(tasks);
+    }
+
+    // Fires the reminders of the days that have begun since the last check
+    @Scheduled(fixedDelayString = "${app.tasks.reminders.check-interval-ms:60000}")
+    void fireDueReminders() {
+        long from;
+        long today = DailyClock.today();
+        synchronized (this) {
+            if (firedDay < 0 || firedDay >= today) {
+                return;
+            }
+            from = firedDay + 1;
+            firedDay = today;
+        }
+        for (long day = from; day <= today; day++) {
+            fire(day);
+        }
+    }
+
+    /**
+     * Notifies the listeners of the tasks that become more urgent on the given day, and drops the buckets that have no
+     * reminders left to fire.
+     */
+    void fire(long day) {
+        var candidateIds = new HashSet<Long>();
+        synchronized (this) {
+            for (long dueDay : List.of(day + MEDIUM_PRIORITY_DAYS_BEFORE, day + HIGH_PRIORITY_DAYS_BEFORE,
+                    day - OVERDUE_DAYS_AFTER)) {
+                candidateIds.addAll(idsByDueDay.getOrDefault(dueDay, Set.of()));
+            }
+            idsByDueDay.headMap(day - OVERDUE_DAYS_AFTER, true).clear();
+        }
+        var reminders = new ArrayList<TaskReminder>();
+        for (List<Long> ids : ListUtils.partition(List.copyOf(candidateIds), MAX_IDS_PER_STATEMENT)) {
+            for (TaskRow task : taskRepository.findRowsByIdIn(ids)) {
+                var type = task.done() || task.dueDate() == null ? null : typeOf(task.dueDate().toEpochDay(), day);
+                if (type != null) {
+                    reminders.add(new TaskReminder(task, type));
+                }
+            }
+        }
+        if (reminders.isEmpty()) {
+            return;
+        }
+        log.debug("Firing {} task reminders for {}", reminders.size(), LocalDate.ofEpochDay(day));
+        var unmodifiableReminders = List.copyOf(reminders);
+        List<Consumer<List<TaskReminder>>> notified;
+        synchronized (this) {
+            lastReminders = unmodifiableReminders;
+            lastRemindersDay = day;
+            notified = List.copyOf(listeners);
+        }
+        for (var listener : notified) {
+            try {
+                listener.accept(unmodifiableReminders);
+            } catch (RuntimeException ex) {
+                log.warn("Task reminder listener failed", ex);
+            }
+        }
+    }
+
+    private static TaskReminder.@Nullable Type typeOf(long dueDay, long day) {
+        if (dueDay == day + MEDIUM_PRIORITY_DAYS_BEFORE) {
+            return TaskReminder.Type.MEDIUM_PRIORITY;
+        } else if (dueDay == day + HIGH_PRIORITY_DAYS_BEFORE) {
+            return TaskReminder.Type.HIGH_PRIORITY;
+        } else if (dueDay == day - OVERDUE_DAYS_AFTER) {
+            return TaskReminder.Type.OVERDUE;
+        }
+        return null; // The due date has changed since the task was added to the bucket
+    }
+}
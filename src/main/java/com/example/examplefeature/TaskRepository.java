@@ -1,13 +1,120 @@
 package com.example.examplefeature;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task> {
 
+    // Reads tasks as TaskRows instead of entities, for everything that only displays or exports them
+    String SELECT_ROWS = """
+            select new com.example.examplefeature.TaskRow(
+                t.id, t.version, t.description, t.creationDate, t.dueDate, t.done, t.color, t.icalUid)
+            from Task t""";
+
+    // Rows the JDBC driver fetches per round trip when reading large results
+    String FETCH_SIZE = "500";
+
     // If you don't need a total row count, Slice is better than Page as it only performs a select query.
     // Page performs both a select and a count query.
-    Slice<Task> findAllBy(Pageable pageable);
+    @Query(SELECT_ROWS)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Slice<TaskRow> findRowsBy(Pageable pageable);
+
+    // Not query cached: the whole table would be one cache entry, dropped again by the next write to any task
+    @Query(SELECT_ROWS)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    List<TaskRow> findAllRows();
+
+    @Query(SELECT_ROWS + " where t.id = :id")
+    Optional<TaskRow> findRowById(Long id);
+
+    @Query(SELECT_ROWS + " where t.id in :ids")
+    List<TaskRow> findRowsByIdIn(Collection<Long> ids);
+
+    // The rows stay locked until the transaction ends, so concurrent changes to the same tasks are made one after the
+    // other, each seeing the state the previous one committed
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(SELECT_ROWS + " where t.id in :ids")
+    List<TaskRow> findRowsByIdInForUpdate(Collection<Long> ids);
+
+    // Not query cached: every cursor is a cache entry of its own, rarely asked for again before the next write drops it.
+    // The first page, which every grid asks for, has no cursor and is read through the cached findRowsBy instead.
+    @Query(SELECT_ROWS + """
+             where t.creationDate > :creationDate or (t.creationDate = :creationDate and t.id > :id)
+            order by t.creationDate asc, t.id asc""")
+    Slice<TaskRow> findRowsAfter(Instant creationDate, Long id, Pageable pageable);
+
+    // Priority only depends on how soon a task is due, so ordering by due date (tasks without one last) orders by
+    // priority as well. Unlike a computed CASE expression, this ordering can be served from the due_date index.
+    @Query(SELECT_ROWS + " order by t.dueDate asc nulls last, t.id asc")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Slice<TaskRow> findRowsOrderedByPriority(Pageable pageable);
+
+    // Served from the due_date index, so the cost depends on the size of the range, not of the table.
+    @Query(SELECT_ROWS + " where t.dueDate between :from and :to")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    List<TaskRow> findRowsDueBetween(LocalDate from, LocalDate to);
+
+    // Like findRowsDueBetween, but query cached, for ranges small enough to be asked for again, such as a calendar page
+    @Query(SELECT_ROWS + " where t.dueDate between :from and :to")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<TaskRow> findCachedRowsDueBetween(LocalDate from, LocalDate to);
+
+    // Served from the due_date index; done tasks and tasks without a due date are left out.
+    @Query(SELECT_ROWS + " where t.done = false and t.dueDate >= :from")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    List<TaskRow> findOpenRowsDueFrom(LocalDate from);
+
+    // "versioned" makes the bulk update increment the version of the tasks, like an update through the entity would
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Task t set t.done = :done, t.lastModified = :lastModified where t.id in :ids")
+    int updateDone(Collection<Long> ids, boolean done, Instant lastModified);
+
+    // Keyset batches stay cheap however deep they go: the database seeks to the last id instead of skipping rows.
+    @Query(SELECT_ROWS + " where t.id > :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    Slice<TaskRow> findRowsWithIdGreaterThan(Long id, Pageable pageable);
+
+    @Query(SELECT_ROWS + " where t.lastModified > :lastModified and t.id > :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    Slice<TaskRow> findRowsModifiedAfter(Instant lastModified, Long id, Pageable pageable);
+
+    // Served from the last_modified index: a done task has not been touched since at least the given instant.
+    // The rows stay locked until the transaction ends, so they cannot be changed between copying and deleting them.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t.id from Task t where t.done = true and t.lastModified < :before order by t.lastModified asc")
+    List<Long> findIdsDoneBefore(Instant before, Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Task t where t.id in :ids")
+    int deleteAllByIds(Collection<Long> ids);
+
+    // One row per due date and done state, so the result stays small however many tasks there are
+    @Query("""
+            select new com.example.examplefeature.TaskCountByDueDate(t.dueDate, t.done, count(t))
+            from Task t group by t.dueDate, t.done""")
+    List<TaskCountByDueDate> countByDueDateAndDone();
+
+    List<Task> findByIcalUidIn(Collection<String> icalUids);
+
+    // The id, so a task keeps the UID it was exported with before it had one of its own; see TaskCalendarWriter
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Task t set t.icalUid = cast(t.id as String) where t.icalUid is null")
+    int assignMissingIcalUids();
 }
@@ -0,0 +1,29 @@
+package com.example.examplefeature;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Read-only view of a task, for lists, calendars and exports. Rows are read with constructor expressions, so unlike
+ * {@link Task} entities they are never tracked by the persistence context: there are no snapshots to keep and nothing
+ * to dirty check on flush. Rows are serializable, as they are kept in the sessions of the views that show them.
+ */
+public record TaskRow(Long id, long version, String description, Instant creationDate, @Nullable LocalDate dueDate,
+                      boolean done, Task.Color color, @Nullable String icalUid) implements Serializable {
+
+    static TaskRow of(Task task) {
+        return new TaskRow(task.getId(), task.getVersion(), task.getDescription(), task.getCreationDate(),
+                task.getDueDate(), task.isDone(), task.getColor(), task.getIcalUid());
+    }
+
+    TaskRow withDone(boolean done) {
+        return new TaskRow(id, version, description, creationDate, dueDate, done, color, icalUid);
+    }
+
+    public Task.Priority priority() {
+        return Task.Priority.of(dueDate, DailyClock.today());
+    }
+}
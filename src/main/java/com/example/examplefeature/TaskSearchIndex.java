@@ -0,0 +1,286 @@
+package com.example.examplefeature;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+
+import org.apache.commons.collections4.ListUtils;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory inverted index over task descriptions. Every word maps to the sorted ids of the tasks whose description
+ * contains it, so a search costs a lookup per word and an intersection of id lists instead of a table scan.
+ * <p>
+ * The index is built once at startup and then kept up to date from {@link TaskChangedEvent}s, and by
+ * {@link TaskService} when an import changes descriptions. Deleted tasks are removed from the index; a task whose
+ * description changes is added under its new words but kept under its old ones, and filtered out by
+ * {@link #matches(String, String)}.
+ * </p>
+ * <p>
+ * A grid fetches the results of a search page by page, so the results of recent searches are kept until the index
+ * changes, and the ids matching a prefix are merged only once per search.
+ * </p>
+ */
+@Component
+class TaskSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskSearchIndex.class);
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int BUILD_BATCH_SIZE = 5000;
+    // Bounds the memory held by recent results, at 8 bytes per id
+    private static final int MAX_CACHED_IDS = 1_000_000;
+
+    private final TaskRepository taskRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> postingsByWord = new TreeMap<>();
+    // Results by the words searched for, cleared whenever the index changes; guarded by the write lock or, for
+    // additions, by the read lock together with the map's own synchronization
+    private final Map<List<String>, long[]> recentResults = new ConcurrentHashMap<>();
+    private final AtomicInteger cachedIds = new AtomicInteger();
+    private volatile boolean ready;
+
+    TaskSearchIndex(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * Returns the ids of the tasks whose description contains all words of the given text, in ascending order, or
+     * {@code null} if the index is still being built. The last word also matches longer words it is a prefix of. The
+     * returned array may be shared with other callers, and must not be modified.
+     */
+    long @Nullable [] search(String text) {
+        if (!ready) {
+            return null;
+        }
+        var words = tokenize(text);
+        if (words.isEmpty()) {
+            return new long[0];
+        }
+        lock.readLock().lock();
+        try {
+            var cached = recentResults.get(words);
+            if (cached != null) {
+                return cached;
+            }
+            long[] result = null;
+            for (int i = 0; i < words.size(); i++) {
+                var ids = i == words.size() - 1 ? prefixMatches(words.get(i)) : exactMatches(words.get(i));
+                result = result == null ? ids : intersect(result, ids);
+                if (result.length == 0) {
+                    break;
+                }
+            }
+            if (cachedIds.addAndGet(result.length) <= MAX_CACHED_IDS) {
+                recentResults.put(words, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void build() {
+        var batch = PageRequest.of(0, BUILD_BATCH_SIZE, Sort.by("id"));
+        Long lastId = 0L;
+        Slice<TaskRow> tasks;
+        do {
+            tasks = taskRepository.findRowsWithIdGreaterThan(lastId, batch);
+            add(tasks.getContent());
+            if (tasks.hasContent()) {
+                lastId = tasks.getContent().getLast().id();
+            }
+        } while (tasks.hasNext());
+        ready = true;
+        log.info("Task search index built with {} words", postingsByWord.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTaskChanged(TaskChangedEvent event) {
+        // Only imports change descriptions, and they reindex what they changed themselves
+        switch (event.type()) {
+            case CREATED -> {
+                for (List<Long> ids : ListUtils.partition(List.copyOf(event.taskIds()),
+                        TaskService.MAX_IDS_PER_STATEMENT)) {
+                    add(taskRepository.findRowsByIdIn(ids));
+                }
+            }
+            case DELETED -> remove(event.taskIds());
+            case UPDATED -> {
+            }
+        }
+    }
+
+    /**
+     * Adds the current descriptions of the given tasks to the index.
+     */
+    void reindex(List<TaskRow> tasks) {
+        if (!tasks.isEmpty()) {
+            add(tasks);
+        }
+    }
+
+    private void add(List<TaskRow> tasks) {
+        lock.writeLock().lock();
+        try {
+            for (TaskRow task : tasks) {
+                for (String word : tokenize(task.description())) {
+                    postingsByWord.computeIfAbsent(word, w -> new Postings()).add(task.id());
+                }
+            }
+            forgetRecentResults();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The words of deleted tasks are not known any more, so every word is looked at, with one pass over its ids
+    private void remove(Collection<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        var ids = taskIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        lock.writeLock().lock();
+        try {
+            postingsByWord.values().removeIf(postings -> postings.removeAll(ids));
+            forgetRecentResults();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Called with the write lock held
+    private void forgetRecentResults() {
+        recentResults.clear();
+        cachedIds.set(0);
+    }
+
+    private long[] exactMatches(String word) {
+        var postings = postingsByWord.get(word);
+        return postings == null ? new long[0] : postings.toArray();
+    }
+
+    private long[] prefixMatches(String prefix) {
+        var matches = postingsByWord.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        if (matches.size() == 1) {
+            return matches.iterator().next().toArray();
+        }
+        return matches.stream().flatMapToLong(Postings::stream).sorted().distinct().toArray();
+    }
+
+    /**
+     * Returns whether the given description contains all words of the given text, with the same rules as
+     * {@link #search(String)}.
+     */
+    static boolean matches(String description, String text) {
+        var words = tokenize(text);
+        if (words.isEmpty()) {
+            return true;
+        }
+        var descriptionWords = tokenize(description);
+        var lastWord = words.getLast();
+        return descriptionWords.containsAll(words.subList(0, words.size() - 1))
+                && descriptionWords.stream().anyMatch(word -> word.startsWith(lastWord));
+    }
+
+    static List<String> tokenize(String text) {
+        var normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        var words = new ArrayList<String>();
+        for (String word : WORD_SEPARATORS.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        var result = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Sorted set of task ids, stored as a primitive array. Ids mostly arrive in ascending order, so adding one is
+     * usually an append.
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) {
+                    return;
+                }
+                insertAt(-index - 1, id);
+            } else {
+                insertAt(size, id);
+            }
+        }
+
+        LongStream stream() {
+            return Arrays.stream(ids, 0, size);
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        // Removes the given ids, which must be sorted, and returns whether no ids are left
+        boolean removeAll(long[] removed) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (Arrays.binarySearch(removed, ids[i]) < 0) {
+                    ids[kept++] = ids[i];
+                }
+            }
+            size = kept;
+            return size == 0;
+        }
+
+        private void insertAt(int index, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+    }
+}
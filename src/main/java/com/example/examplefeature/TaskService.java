@@ -1,111 +1,681 @@
 package com.example.examplefeature;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.function.LongConsumer;
 
-import org.apache.commons.collections4.ComparatorUtils;
+import io.micrometer.core.annotation.Timed;
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
-import net.fortuna.ical4j.model.Calendar;
-import net.fortuna.ical4j.model.Date;
-import net.fortuna.ical4j.model.DateTime;
-import net.fortuna.ical4j.model.component.VEvent;
-import net.fortuna.ical4j.model.property.ProdId;
-import net.fortuna.ical4j.model.property.Summary;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class TaskService {
 
+    private static final Logger log = LoggerFactory.getLogger(TaskService.class);
+
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    // Keeps IN lists within what every database accepts
+    static final int MAX_IDS_PER_STATEMENT = 1000;
+
+    // The longest range a calendar shows at once (six weeks); the tasks of longer ranges are not query cached
+    private static final int MAX_CACHED_DUE_DATE_RANGE_DAYS = 42;
+
+    private static final Sort CREATION_ORDER = Sort.by("creationDate", "id");
+
     private final TaskRepository taskRepository;
+    private final ArchivedTaskRepository archivedTaskRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskMetrics taskMetrics;
+    private final TaskSearchIndex searchIndex;
+    private final TaskStatistics statistics;
+    private final TaskReminders reminders;
+
+    // Number of tasks, or -1 until it has been counted. Kept up to date by the writes of this service. The generation
+    // changes with every committed write, so a count that raced with a write is not kept. Both are guarded by this.
+    private long taskCount = -1;
+    private long countGeneration;
+
+    private volatile TaskWatermark watermark = new TaskWatermark(
+            Long.toHexString(ThreadLocalRandom.current().nextLong()), 0, now());
 
-    TaskService(TaskRepository taskRepository) {
+    TaskService(TaskRepository taskRepository, ArchivedTaskRepository archivedTaskRepository,
+                ApplicationEventPublisher eventPublisher, TaskMetrics taskMetrics, TaskSearchIndex searchIndex,
+                TaskStatistics statistics, TaskReminders reminders) {
         this.taskRepository = taskRepository;
+        this.archivedTaskRepository = archivedTaskRepository;
+        this.eventPublisher = eventPublisher;
+        this.taskMetrics = taskMetrics;
+        this.searchIndex = searchIndex;
+        this.statistics = statistics;
+        this.reminders = reminders;
     }
 
+    @Timed(value = "task.service", extraTags = {"operation", "createTask"}, histogram = true)
     @Transactional
     public void createTask(String description, @Nullable LocalDate dueDate) {
         if ("fail".equals(description)) {
             throw new RuntimeException("This is for testing the error handler");
         }
-        var task = new Task(description, Instant.now());
+        var task = new Task(description, now());
         task.setDueDate(dueDate);
         taskRepository.saveAndFlush(task);
+        var created = TaskRow.of(task);
+        publishChange(TaskChangedEvent.Type.CREATED, List.of(task.getId()), List.of(), List.of(created));
+        afterCommit(() -> {
+            adjustTaskCount(1);
+            reminders.add(List.of(created));
+        });
+    }
+
+    /**
+     * Creates all the given tasks in one transaction. The inserts are sent to the database in JDBC batches.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "createTasks"}, histogram = true)
+    @Transactional
+    public void createTasks(List<NewTask> newTasks) {
+        var creationDate = now();
+        var tasks = new ArrayList<Task>(newTasks.size());
+        for (NewTask newTask : newTasks) {
+            var task = new Task(newTask.description(), creationDate);
+            task.setDueDate(newTask.dueDate());
+            tasks.add(task);
+        }
+        taskRepository.saveAll(tasks);
+        taskRepository.flush();
+        var ids = tasks.stream().map(Task::getId).toList();
+        var created = tasks.stream().map(TaskRow::of).toList();
+        publishChange(TaskChangedEvent.Type.CREATED, ids, List.of(), created);
+        afterCommit(() -> {
+            adjustTaskCount(tasks.size());
+            reminders.add(created);
+        });
+    }
+
+    /**
+     * Creates or updates the given tasks in one transaction. A task with a UID updates the task with the same UID if
+     * there is one, whether it was imported earlier or exported from here, so importing the same events again changes
+     * nothing.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "importTasks"}, histogram = true)
+    @Transactional
+    TaskImportResult importTasks(List<ImportedTask> importedTasks) {
+        var withUid = new LinkedHashMap<String, ImportedTask>();
+        var withoutUid = new ArrayList<ImportedTask>();
+        for (ImportedTask importedTask : importedTasks) {
+            if (importedTask.icalUid() == null) {
+                withoutUid.add(importedTask);
+            } else {
+                withUid.put(importedTask.icalUid(), importedTask);
+            }
+        }
+        var lastModified = now();
+        var updated = new ArrayList<Task>();
+        var beforeUpdate = new ArrayList<TaskRow>();
+        if (!withUid.isEmpty()) {
+            for (Task task : taskRepository.findByIcalUidIn(withUid.keySet())) {
+                var importedTask = withUid.remove(task.getIcalUid());
+                if (!importedTask.description().equals(task.getDescription())
+                        || !Objects.equals(importedTask.dueDate(), task.getDueDate())) {
+                    beforeUpdate.add(TaskRow.of(task));
+                    task.setDescription(importedTask.description());
+                    task.setDueDate(importedTask.dueDate());
+                    task.setLastModified(lastModified);
+                    updated.add(task);
+                }
+            }
+        }
+        var created = new ArrayList<Task>(withUid.size() + withoutUid.size());
+        for (ImportedTask importedTask : ListUtils.union(List.copyOf(withUid.values()), withoutUid)) {
+            var task = new Task(importedTask.description(), lastModified);
+            task.setDueDate(importedTask.dueDate());
+            if (importedTask.icalUid() != null) {
+                task.setIcalUid(importedTask.icalUid());
+            }
+            created.add(task);
+        }
+        taskRepository.saveAll(created);
+        taskRepository.flush();
+        var createdRows = created.stream().map(TaskRow::of).toList();
+        var updatedRows = updated.stream().map(TaskRow::of).toList();
+        if (!created.isEmpty()) {
+            publishChange(TaskChangedEvent.Type.CREATED, created.stream().map(Task::getId).toList(), List.of(),
+                    createdRows);
+        }
+        if (!updated.isEmpty()) {
+            publishChange(TaskChangedEvent.Type.UPDATED, updated.stream().map(Task::getId).toList(), beforeUpdate,
+                    updatedRows);
+        }
+        afterCommit(() -> {
+            adjustTaskCount(created.size());
+            searchIndex.reindex(updatedRows);
+            reminders.add(ListUtils.union(createdRows, updatedRows));
+        });
+        return new TaskImportResult(created.size(), updated.size());
+    }
+
+    // Tasks created before every task got a UID would otherwise be exported with a UID that no task has, and be
+    // duplicated when the export is imported again
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    void assignMissingIcalUids() {
+        var assigned = taskRepository.assignMissingIcalUids();
+        if (assigned > 0) {
+            log.info("Assigned calendar UIDs to {} tasks", assigned);
+        }
+    }
+
+    @Timed(value = "task.service", extraTags = {"operation", "list"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<TaskRow> list(Pageable pageable) {
+        if (pageable.getSort().isUnsorted()) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), CREATION_ORDER);
+        }
+        return taskMetrics.recordRows("list", taskRepository.findRowsBy(pageable).toList());
+    }
+
+    /**
+     * Returns up to {@code limit} tasks in creation order, starting right after the given cursor, or from the first
+     * task if the cursor is {@code null}. Unlike {@link #list(Pageable)}, the cost does not depend on how far into the
+     * list the cursor is.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "listAfter"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<TaskRow> listAfter(@Nullable TaskCursor cursor, int limit) {
+        var page = PageRequest.ofSize(limit);
+        // The first page is query cached, the pages after a cursor are not; see TaskRepository.findRowsAfter
+        var tasks = cursor == null
+                ? taskRepository.findRowsBy(page.withSort(CREATION_ORDER))
+                : taskRepository.findRowsAfter(cursor.creationDate(), cursor.id(), page);
+        return taskMetrics.recordRows("listAfter", tasks.toList());
+    }
+
+    /**
+     * Returns the tasks that match the given filter, in creation order. Words to search for are looked up in the
+     * in-memory search index, and only the tasks that contain them are read, with the other criteria applied to the
+     * rows read. Without words, the criteria are applied by the database. Archived tasks are only searched if the
+     * filter includes them, and then all matches up to the end of the page are read.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "search"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<TaskRow> search(TaskFilter filter, Pageable pageable) {
+        if (searchesArchive(filter)) {
+            var offset = Math.toIntExact(pageable.getOffset());
+            var tasks = searchAfterWithArchived(filter, null, offset + pageable.getPageSize());
+            return taskMetrics.recordRows("search", tasks.subList(Math.min(offset, tasks.size()), tasks.size()));
+        }
+        var matchingIds = filter.hasText() ? searchIndex.search(filter.text()) : null;
+        if (matchingIds == null) {
+            return taskMetrics.recordRows("search", findBy(databaseSearch(filter), pageable));
+        }
+        return taskMetrics.recordRows("search",
+                readMatches(filter, matchingIds, 0, pageable.getOffset(), pageable.getPageSize()));
+    }
+
+    /**
+     * Returns up to {@code limit} tasks that match the given filter, in creation order, starting right after the given
+     * cursor, or from the first match if the cursor is {@code null}. Unlike {@link #search(TaskFilter, Pageable)},
+     * the cost does not depend on how far into the results the cursor is.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "searchAfter"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<TaskRow> searchAfter(TaskFilter filter, @Nullable TaskCursor cursor, int limit) {
+        var tasks = searchesArchive(filter)
+                ? searchAfterWithArchived(filter, cursor, limit)
+                : searchTasksAfter(filter, cursor, limit);
+        return taskMetrics.recordRows("searchAfter", tasks);
+    }
+
+    private List<TaskRow> searchTasksAfter(TaskFilter filter, @Nullable TaskCursor cursor, int limit) {
+        var matchingIds = filter.hasText() ? searchIndex.search(filter.text()) : null;
+        if (matchingIds == null) {
+            var spec = cursor == null ? databaseSearch(filter)
+                    : databaseSearch(filter).and(TaskSpecifications.after(cursor));
+            return findBy(spec, PageRequest.ofSize(limit));
+        }
+        // The matches are in id order, which is creation order, so the search goes on after the id of the cursor
+        int from = 0;
+        if (cursor != null) {
+            int index = Arrays.binarySearch(matchingIds, cursor.id());
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        return readMatches(filter, matchingIds, from, 0, limit);
+    }
+
+    // Archived tasks are all done
+    private static boolean searchesArchive(TaskFilter filter) {
+        return filter.includeArchived() && !Boolean.FALSE.equals(filter.done());
+    }
+
+    // Both lists are in creation order and hold the first matches after the cursor, so the first of both together are
+    // the first matches overall
+    private List<TaskRow> searchAfterWithArchived(TaskFilter filter, @Nullable TaskCursor cursor, int limit) {
+        var tasks = new ArrayList<>(searchTasksAfter(filter, cursor, limit));
+        tasks.addAll(searchArchivedAfter(filter, cursor, limit));
+        tasks.sort(Comparator.comparing(TaskRow::creationDate).thenComparing(TaskRow::id));
+        return tasks.subList(0, Math.min(limit, tasks.size()));
+    }
+
+    /**
+     * Returns up to {@code limit} archived tasks that match the given filter, in creation order, after the given
+     * cursor. The archive is not in the search index, so the text is matched by the database like
+     * {@link #databaseSearch(TaskFilter)} does, and the other criteria are applied to the rows read, in chunks that
+     * grow like those of {@link #readMatches(TaskFilter, long[], int, long, int)}.
+     */
+    private List<TaskRow> searchArchivedAfter(TaskFilter filter, @Nullable TaskCursor cursor, int limit) {
+        var pattern = filter.hasText() ? TaskSpecifications.containsPattern(filter.text().strip()) : "%";
+        var creationDate = cursor == null ? Instant.EPOCH : cursor.creationDate();
+        var id = cursor == null ? 0L : cursor.id();
+        var tasks = new ArrayList<TaskRow>(limit);
+        int chunkSize = Math.min(Math.max(limit, 1), MAX_IDS_PER_STATEMENT);
+        while (tasks.size() < limit) {
+            var chunk = archivedTaskRepository.findRowsLikeAfter(pattern, creationDate, id, Limit.of(chunkSize));
+            chunk.stream().filter(filter::matchesCriteria).limit(limit - tasks.size()).forEach(tasks::add);
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            creationDate = chunk.getLast().creationDate();
+            id = chunk.getLast().id();
+            chunkSize = Math.min(chunkSize * 2, MAX_IDS_PER_STATEMENT);
+        }
+        return tasks;
+    }
+
+    // Used while the search index is still being built, and for filters without words
+    private static Specification<Task> databaseSearch(TaskFilter filter) {
+        var spec = TaskSpecifications.matching(filter);
+        return filter.hasText() ? spec.and(TaskSpecifications.descriptionContains(filter.text().strip())) : spec;
+    }
+
+    /**
+     * Reads the tasks with the given ids from the given index on, skipping the first {@code toSkip} that match the
+     * filter, until {@code limit} tasks match. The ids are read in chunks that start at the size of the page and grow
+     * up to {@link #MAX_IDS_PER_STATEMENT}, so a selective filter does not take a round trip per page of ids.
+     */
+    private List<TaskRow> readMatches(TaskFilter filter, long[] matchingIds, int from, long toSkip, int limit) {
+        var tasks = new ArrayList<TaskRow>(limit);
+        int chunkSize = Math.min(Math.max(limit, 1), MAX_IDS_PER_STATEMENT);
+        while (from < matchingIds.length && tasks.size() < limit) {
+            int to = Math.min(matchingIds.length, from + chunkSize);
+            var ids = Arrays.stream(matchingIds, from, to).boxed().toList();
+            // The index may still list tasks under words their description no longer contains
+            var matches = taskRepository.findRowsByIdIn(ids).stream()
+                    .filter(task -> filter.matchesCriteria(task)
+                            && TaskSearchIndex.matches(task.description(), filter.text()))
+                    .sorted(Comparator.comparing(TaskRow::id))
+                    .toList();
+            from = to;
+            chunkSize = Math.min(chunkSize * 2, MAX_IDS_PER_STATEMENT);
+            if (toSkip >= matches.size()) {
+                toSkip -= matches.size();
+                continue;
+            }
+            var remaining = matches.subList((int) toSkip, matches.size());
+            toSkip = 0;
+            tasks.addAll(remaining.subList(0, Math.min(remaining.size(), limit - tasks.size())));
+        }
+        return tasks;
+    }
+
+    private List<TaskRow> findBy(Specification<Task> spec, Pageable pageable) {
+        return taskRepository.findBy(spec, query -> query.sortBy(CREATION_ORDER).slice(pageable))
+                .map(TaskRow::of).toList();
+    }
+
+    /**
+     * Returns the number of tasks. The database is only counted the first time; after that the count is maintained
+     * by the writes made through this service. A count taken inside a writing transaction includes its uncommitted
+     * changes, so it is returned but not kept.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "count"}, histogram = true)
+    @Transactional(readOnly = true)
+    public long count() {
+        long generation;
+        synchronized (this) {
+            if (taskCount >= 0) {
+                return taskCount;
+            }
+            generation = countGeneration;
+        }
+        var count = taskRepository.count();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            synchronized (this) {
+                if (countGeneration == generation) {
+                    taskCount = count;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a summary of the current state of all tasks that changes with every committed change, including the
+     * changes made by other instances of the application.
+     */
+    public TaskWatermark watermark() {
+        return watermark;
+    }
+
+    // Called after commit, or right away for changes received from other instances
+    @TransactionalEventListener(fallbackExecution = true)
+    synchronized void onTaskChanged(TaskChangedEvent event) {
+        watermark = watermark.next(now());
+    }
+
+    @Timed(value = "task.service", extraTags = {"operation", "findAll"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<TaskRow> findAll() {
+        return taskMetrics.recordRows("findAll", taskRepository.findAllRows());
+    }
+
+    /**
+     * Like {@link #findAll()}, but with {@code includeArchived} also returns the tasks that have been archived, after
+     * all other tasks.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "findAll"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<TaskRow> findAll(boolean includeArchived) {
+        if (!includeArchived) {
+            return findAll();
+        }
+        return taskMetrics.recordRows("findAll",
+                ListUtils.union(taskRepository.findAllRows(), archivedTaskRepository.findAllRows()));
+    }
+
+    // For the progress of exports that include the archive
+    @Transactional(readOnly = true)
+    long countArchived() {
+        return archivedTaskRepository.count();
     }
 
+    @Timed(value = "task.service", extraTags = {"operation", "findById"}, histogram = true)
     @Transactional(readOnly = true)
-    public List<Task> list(Pageable pageable) {
-        return taskRepository.findAllBy(pageable).toList();
+    public Optional<TaskRow> findById(Long taskId) {
+        return taskRepository.findRowById(taskId);
     }
 
+    /**
+     * Returns the tasks due within the given range, both ends inclusive.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "listDueBetween"}, histogram = true)
     @Transactional(readOnly = true)
-    public List<Task> findAll() {
-        return taskRepository.findAll();
+    public List<TaskRow> listDueBetween(LocalDate from, LocalDate to) {
+        var tasks = ChronoUnit.DAYS.between(from, to) < MAX_CACHED_DUE_DATE_RANGE_DAYS
+                ? taskRepository.findCachedRowsDueBetween(from, to)
+                : taskRepository.findRowsDueBetween(from, to);
+        return taskMetrics.recordRows("listDueBetween", tasks);
     }
 
+    @Timed(value = "task.service", extraTags = {"operation", "updateTaskDone"}, histogram = true)
     @Transactional
     public void updateTaskDone(Long taskId, boolean done) {
-        var task = taskRepository.findById(taskId).orElseThrow(() -> new IllegalArgumentException("Task not found"));
-        task.setDone(done);
-        taskRepository.saveAndFlush(task);
+        if (updateDone(List.of(taskId), done, now()) == 0) {
+            throw new IllegalArgumentException("Task not found");
+        }
     }
-    
-    public String exportTasksToIcs() throws IOException {
-        List<Task> tasks = taskRepository.findAll();
-        Calendar calendar = new Calendar();
-        calendar.getProperties().add(new ProdId("-//Tasks App//iCal4j 1.0//EN"));
-        calendar.getProperties().add(net.fortuna.ical4j.model.property.Version.VERSION_2_0);
-        calendar.getProperties().add(net.fortuna.ical4j.model.property.CalScale.GREGORIAN);
-
-        for (Task task : tasks) {
-            VEvent vEvent = new VEvent();
-
-            // Set summary (description)
-            vEvent.getProperties().add(new Summary(task.getDescription()));
-
-            // Set start date to creation date
-            vEvent.getProperties().add(
-                    new net.fortuna.ical4j.model.property.DtStart(new DateTime(Date.from(task.getCreationDate()))));
-
-            // Set due date if present, or use creation date + 1 day as end date
-            if (task.getDueDate() != null) {
-                java.util.Date dueDate = java.util.Date
-                        .from(task.getDueDate().atStartOfDay(ZoneId.systemDefault()).toInstant());
-                vEvent.getProperties().add(new net.fortuna.ical4j.model.property.DtEnd(new DateTime(dueDate)));
-            } else {
-                // Set end date to creation date + 1 day if no due date
-                java.util.Date endDate = java.util.Date
-                        .from(task.getCreationDate().plusSeconds(86400)); // Add 24 hours
-                vEvent.getProperties().add(new net.fortuna.ical4j.model.property.DtEnd(new DateTime(endDate)));
+
+    /**
+     * Marks all the given tasks as done or not done with as few {@code UPDATE} statements as possible, and returns the
+     * number of tasks that were found. Tasks that already are in the given state are not written.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "markDone"}, histogram = true)
+    @Transactional
+    public int markDone(Collection<Long> taskIds, boolean done) {
+        var lastModified = now();
+        int found = 0;
+        for (List<Long> ids : ListUtils.partition(List.copyOf(taskIds), MAX_IDS_PER_STATEMENT)) {
+            found += updateDone(ids, done, lastModified);
+        }
+        return found;
+    }
+
+    /**
+     * Sets the done state of several tasks in one transaction, each only if the task is still at the expected
+     * version. The changed tasks are written as one JDBC batch of versioned {@code UPDATE} statements. Returns the
+     * tasks that are now in the requested state, by id; tasks that have been removed or are at another version are
+     * left out.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "applyDoneUpdates"}, histogram = true)
+    @Transactional
+    Map<Long, TaskRow> applyDoneUpdates(Map<Long, TaskDoneWriter.Update> updates) {
+        var lastModified = now();
+        var tasks = new ArrayList<Task>(updates.size());
+        var changedIds = new ArrayList<Long>();
+        var beforeChange = new ArrayList<TaskRow>();
+        for (List<Long> ids : ListUtils.partition(List.copyOf(updates.keySet()), MAX_IDS_PER_STATEMENT)) {
+            for (Task task : taskRepository.findAllById(ids)) {
+                var update = updates.get(task.getId());
+                if (task.getVersion() != update.expectedVersion()) {
+                    continue;
+                }
+                if (task.isDone() != update.done()) {
+                    beforeChange.add(TaskRow.of(task));
+                    task.setDone(update.done());
+                    task.setLastModified(lastModified);
+                    changedIds.add(task.getId());
+                }
+                tasks.add(task);
             }
+        }
+        // Increments the versions, and fails the whole transaction if a task has been changed since it was read
+        taskRepository.flush();
+        var rows = new HashMap<Long, TaskRow>(tasks.size());
+        tasks.forEach(task -> rows.put(task.getId(), TaskRow.of(task)));
+        var afterChange = changedIds.stream().map(rows::get).toList();
+        if (!changedIds.isEmpty()) {
+            publishChange(TaskChangedEvent.Type.UPDATED, changedIds, beforeChange, afterChange);
+        }
+        afterCommit(() -> {
+            // A task that is not done again may have left its bucket, or never have been in one
+            reminders.add(afterChange.stream().filter(task -> !task.done()).toList());
+        });
+        return rows;
+    }
+
+    /**
+     * Moves up to {@code limit} tasks that are done and have not been changed since the given instant to the archive,
+     * and returns how many were moved. The tasks are copied and deleted with one statement each, so their number does
+     * not affect the number of round trips.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "archiveDoneTasks"}, histogram = true)
+    @Transactional
+    int archiveDoneTasks(Instant doneBefore, int limit) {
+        var ids = taskRepository.findIdsDoneBefore(doneBefore, Limit.of(limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        var before = taskRepository.findRowsByIdIn(ids);
+        archivedTaskRepository.copyFromTasks(ids, now());
+        int archived = taskRepository.deleteAllByIds(ids);
+        publishChange(TaskChangedEvent.Type.DELETED, ids, before, List.of());
+        afterCommit(() -> adjustTaskCount(-archived));
+        return archived;
+    }
 
-            // Generate unique ID
-            var uid = new net.fortuna.ical4j.model.property.Uid(task.getId().toString());
-            vEvent.getProperties().add(uid);
+    @Timed(value = "task.service", extraTags = {"operation", "exportTasksToIcs"}, histogram = true)
+    public String exportTasksToIcs() throws IOException {
+        var out = new ByteArrayOutputStream();
+        exportTasksToIcs(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Streams all tasks as an iCalendar document to the given output stream. Tasks are read in id order, one batch
+     * per transaction, so neither the heap nor the transaction grows with the number of tasks.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "exportTasksToIcs"}, histogram = true)
+    public void exportTasksToIcs(OutputStream out) throws IOException {
+        exportTasksToIcs(out, exported -> {
+        });
+    }
+
+    /**
+     * Like {@link #exportTasksToIcs(OutputStream)}, but reports the number of tasks written so far to the given
+     * listener after every batch. The listener can abort the export by throwing an exception.
+     */
+    void exportTasksToIcs(OutputStream out, LongConsumer progressListener) throws IOException {
+        exportTasksToIcs(out, false, progressListener);
+    }
+
+    /**
+     * Like {@link #exportTasksToIcs(OutputStream, LongConsumer)}, but with {@code includeArchived} also writes the
+     * tasks that have been archived, after all other tasks.
+     */
+    void exportTasksToIcs(OutputStream out, boolean includeArchived, LongConsumer progressListener)
+            throws IOException {
+        var sources = includeArchived
+                ? List.<BiFunction<Long, Pageable, Slice<TaskRow>>>of(taskRepository::findRowsWithIdGreaterThan,
+                        archivedTaskRepository::findRowsWithIdGreaterThan)
+                : List.<BiFunction<Long, Pageable, Slice<TaskRow>>>of(taskRepository::findRowsWithIdGreaterThan);
+        exportTasksToIcs(out, sources, progressListener);
+    }
+
+    /**
+     * Streams the tasks that have been changed after the given instant as an iCalendar document to the given output
+     * stream. Tasks that have been removed since are not included.
+     */
+    @Timed(value = "task.service", extraTags = {"operation", "exportTasksToIcsModifiedAfter"}, histogram = true)
+    public void exportTasksToIcs(OutputStream out, Instant modifiedAfter) throws IOException {
+        exportTasksToIcs(out,
+                List.of((lastId, batch) -> taskRepository.findRowsModifiedAfter(modifiedAfter, lastId, batch)),
+                exported -> {
+                });
+    }
+
+    private void exportTasksToIcs(OutputStream out, List<BiFunction<Long, Pageable, Slice<TaskRow>>> sources,
+                                  LongConsumer progressListener) throws IOException {
+        var countingOut = new CountingOutputStream(out);
+        var writer = new BufferedWriter(new OutputStreamWriter(countingOut, StandardCharsets.UTF_8));
+        writeTasksAsIcs(writer, sources, progressListener);
+        taskMetrics.recordExportedBytes(countingOut.getByteCount());
+    }
 
-            calendar.getComponents().add(vEvent);
+    // Writes the tasks of each source in turn, each read in id order
+    private void writeTasksAsIcs(Writer out, List<BiFunction<Long, Pageable, Slice<TaskRow>>> sources,
+                                 LongConsumer progressListener) throws IOException {
+        var writer = new TaskCalendarWriter(out);
+        writer.writeHeader();
+        var batch = PageRequest.of(0, EXPORT_BATCH_SIZE, Sort.by("id"));
+        long exported = 0;
+        for (BiFunction<Long, Pageable, Slice<TaskRow>> nextBatch : sources) {
+            Long lastId = 0L;
+            Slice<TaskRow> tasks;
+            do {
+                tasks = nextBatch.apply(lastId, batch);
+                for (TaskRow task : tasks) {
+                    writer.writeTask(task);
+                    lastId = task.id();
+                }
+                exported += tasks.getNumberOfElements();
+                progressListener.accept(exported);
+            } while (tasks.hasNext());
         }
+        writer.writeFooter();
+    }
+
+    @Timed(value = "task.service", extraTags = {"operation", "listSortedByPriority"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<TaskRow> listSortedByPriority(Pageable pageable) {
+        return taskMetrics.recordRows("listSortedByPriority",
+                taskRepository.findRowsOrderedByPriority(pageable).toList());
+    }
+
+    // The database keeps microseconds; truncating keeps cursors taken from new tasks in line with stored ones
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Makes the next {@link #count()} count the tasks in the database again, for tasks created or removed by other
+     * instances of the application.
+     */
+    synchronized void forgetCount() {
+        countGeneration++;
+        taskCount = -1;
+    }
 
-        StringWriter writer = new StringWriter();
-        net.fortuna.ical4j.data.CalendarOutputter outputter = new net.fortuna.ical4j.data.CalendarOutputter();
-        outputter.output(calendar, writer);
-        return writer.toString();
+    /**
+     * Sets the done state of up to {@link #MAX_IDS_PER_STATEMENT} tasks and returns how many of them were found. A bulk
+     * update doesn't tell which tasks it changed, while the statistics need their state before the change, so the
+     * tasks are read and locked first. That is one round trip more per chunk than the update alone, but concurrent
+     * updates of the same tasks then cannot both count the same change.
+     */
+    private int updateDone(List<Long> ids, boolean done, Instant lastModified) {
+        var found = taskRepository.findRowsByIdInForUpdate(ids);
+        var before = found.stream().filter(task -> task.done() != done).toList();
+        if (!before.isEmpty()) {
+            var changedIds = before.stream().map(TaskRow::id).toList();
+            taskRepository.updateDone(changedIds, done, lastModified);
+            var after = before.stream().map(task -> task.withDone(done)).toList();
+            publishChange(TaskChangedEvent.Type.UPDATED, changedIds, before, after);
+            // A task that is not done again may have left its bucket, or never have been in one
+            if (!done) {
+                afterCommit(() -> reminders.add(after));
+            }
+        }
+        return found.size();
+    }
+
+    private synchronized void adjustTaskCount(long delta) {
+        countGeneration++;
+        if (taskCount >= 0) {
+            taskCount += delta;
+        }
     }
-    public List<Task> listSortedByPriority(Pageable pageable) {
-        List<Task> tasks = taskRepository.findAllBy(pageable).toList();
-        Comparator<Task> priorityComparator = Comparator.comparing(Task::getPriority);
-        return tasks.stream().sorted(priorityComparator).toList();
+
+    // The statistics of this instance count the change once it is committed, those of other instances once the
+    // TaskOutbox hands them the event
+    private void publishChange(TaskChangedEvent.Type type, Collection<Long> ids, Collection<TaskRow> before,
+                               Collection<TaskRow> after) {
+        var countChanges = TaskCountByDueDate.changes(before, after);
+        eventPublisher.publishEvent(new TaskChangedEvent(type, ids, countChanges));
+        var generation = statistics.generation();
+        afterCommit(() -> statistics.record(generation, countChanges));
     }
 
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
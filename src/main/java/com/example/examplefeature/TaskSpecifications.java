@@ -0,0 +1,84 @@
+package com.example.examplefeature;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Building blocks for task queries that are combined at runtime, such as the filters of a search.
+ */
+final class TaskSpecifications {
+
+    private TaskSpecifications() {
+    }
+
+    static Specification<Task> matching(TaskFilter filter) {
+        Specification<Task> spec = Specification.unrestricted();
+        if (filter.done() != null) {
+            spec = spec.and(isDone(filter.done()));
+        }
+        if (filter.dueFrom() != null) {
+            spec = spec.and(dueOnOrAfter(filter.dueFrom()));
+        }
+        if (filter.dueTo() != null) {
+            spec = spec.and(dueOnOrBefore(filter.dueTo()));
+        }
+        if (filter.priority() != null) {
+            spec = spec.and(hasPriority(filter.priority()));
+        }
+        return spec;
+    }
+
+    static Specification<Task> isDone(boolean done) {
+        return (root, query, cb) -> cb.equal(root.get("done"), done);
+    }
+
+    static Specification<Task> dueOnOrAfter(LocalDate date) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("dueDate"), date);
+    }
+
+    static Specification<Task> dueOnOrBefore(LocalDate date) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("dueDate"), date);
+    }
+
+    /**
+     * Matches the tasks that currently have the given priority, expressed as due date bounds so that the due_date
+     * index can be used. Must be kept in line with {@link Task#getPriority()}.
+     */
+    static Specification<Task> hasPriority(Task.Priority priority) {
+        var today = DailyClock.todayAsDate();
+        var lastHigh = today.plusDays(2);
+        var lastMedium = today.plusDays(5);
+        return switch (priority) {
+            case HIGH -> dueOnOrBefore(lastHigh);
+            case MEDIUM -> dueOnOrAfter(lastHigh.plusDays(1)).and(dueOnOrBefore(lastMedium));
+            case LOW -> Specification.<Task>where((root, query, cb) -> cb.isNull(root.get("dueDate")))
+                    .or(dueOnOrAfter(lastMedium.plusDays(1)));
+        };
+    }
+
+    static Specification<Task> descriptionContains(String text) {
+        var pattern = containsPattern(text);
+        return (root, query, cb) -> cb.like(cb.lower(root.get("description")), pattern, '\\');
+    }
+
+    /**
+     * Returns a {@code LIKE} pattern, with {@code \} as escape character, for lower case text containing the given
+     * text.
+     */
+    static String containsPattern(String text) {
+        return "%" + text.toLowerCase(Locale.ROOT).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * Matches the tasks that come after the given cursor in creation order, like
+     * {@link TaskRepository#findRowsAfter(java.time.Instant, Long, org.springframework.data.domain.Pageable)}.
+     */
+    static Specification<Task> after(TaskCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("creationDate"), cursor.creationDate()),
+                cb.and(cb.equal(root.get("creationDate"), cursor.creationDate()),
+                        cb.greaterThan(root.get("id"), cursor.id())));
+    }
+}
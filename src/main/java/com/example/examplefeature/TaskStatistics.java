@@ -0,0 +1,156 @@
+package com.example.examplefeature;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collection;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the counts shown on the statistics dashboard, so that reading them costs the same however many tasks there
+ * are.
+ * <p>
+ * The counts are read from the database once, as a count per due date, and after that maintained from the tasks
+ * {@link TaskService} creates, changes and removes, here or, through the {@link TaskOutbox}, on other instances of the
+ * application. Whether a task is overdue, due this week and of which priority depends on the current day, so the
+ * counts are read again once the day changes.
+ * </p>
+ * <p>
+ * A change committed while the counts are being read may or may not be included in them. Every read therefore starts
+ * a new generation, changes are recorded with the generation from before their commit, and a change from an earlier
+ * generation is not counted again. The counts are read once more instead, as they are for changes of other instances
+ * whose count changes are not known.
+ * </p>
+ */
+@Component
+public class TaskStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskStatistics.class);
+
+    private static final long NO_DUE_DATE = Long.MAX_VALUE;
+
+    private final TaskRepository taskRepository;
+
+    private volatile @Nullable TaskStats stats;
+    private volatile boolean stale;
+    // Incremented when the counts start and finish being read, so it is odd while they are
+    private volatile long generation;
+
+    // Counts as of the day they were computed for, guarded by this
+    private long day;
+    private long endOfWeek;
+    private long total;
+    private long done;
+    private long overdue;
+    private long dueThisWeek;
+    private long highPriority;
+    private long mediumPriority;
+    private long lowPriority;
+
+    TaskStatistics(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * Returns the current counts.
+     */
+    public TaskStats current() {
+        var current = stats;
+        if (current == null) {
+            rebuild();
+            current = stats;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the generation of the counts, to be passed to {@link #record(long, Collection)} for a change that has not
+     * been committed yet.
+     */
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * Counts the given changes, made by a transaction that committed after the counts were at the given generation.
+     * If they have been read since, they may already include the changes, so they are read again instead.
+     */
+    synchronized void record(long generation, Collection<TaskCountByDueDate> changes) {
+        if (stats == null) {
+            return; // Counted when read for the first time
+        }
+        if (generation != this.generation) {
+            stale = true;
+            return;
+        }
+        changes.forEach(change -> count(change.dueDate(), change.done(), change.count()));
+        publish();
+    }
+
+    /**
+     * Makes the counts be read from the database again, for changes this instance doesn't know the details of.
+     */
+    void invalidate() {
+        stale = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    synchronized void rebuild() {
+        generation++;
+        try {
+            stale = false;
+            var today = DailyClock.todayAsDate();
+            day = today.toEpochDay();
+            endOfWeek = today.with(DayOfWeek.SUNDAY).toEpochDay();
+            total = done = overdue = dueThisWeek = highPriority = mediumPriority = lowPriority = 0;
+            for (TaskCountByDueDate count : taskRepository.countByDueDateAndDone()) {
+                count(count.dueDate(), count.done(), count.count());
+            }
+            publish();
+            log.debug("Task statistics counted for {}: {}", today, stats);
+        } finally {
+            generation++;
+        }
+    }
+
+    // Rolls the counts over to the next day, and picks up changes that could not be counted
+    @Scheduled(fixedDelayString = "${app.tasks.statistics.refresh-interval-ms:60000}")
+    void refresh() {
+        boolean dayChanged;
+        synchronized (this) {
+            dayChanged = DailyClock.today() != day;
+        }
+        if (stats != null && (stale || dayChanged)) {
+            rebuild();
+        }
+    }
+
+    private void count(@Nullable LocalDate dueDate, boolean isDone, long tasks) {
+        total += tasks;
+        if (isDone) {
+            done += tasks;
+            return;
+        }
+        var due = dueDate == null ? NO_DUE_DATE : dueDate.toEpochDay();
+        if (due < day) {
+            overdue += tasks;
+        } else if (due <= endOfWeek) {
+            dueThisWeek += tasks;
+        }
+        switch (Task.Priority.of(dueDate, day)) {
+            case HIGH -> highPriority += tasks;
+            case MEDIUM -> mediumPriority += tasks;
+            case LOW -> lowPriority += tasks;
+        }
+    }
+
+    private void publish() {
+        stats = new TaskStats(total, done, overdue, dueThisWeek, highPriority, mediumPriority, lowPriority);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.examplefeature;
+
+/**
+ * Task counts for the statistics dashboard, as maintained by {@link TaskStatistics}. All counts except {@code total}
+ * and {@code done} only include tasks that are not done.
+ *
+ * @param total          the number of tasks
+ * @param done           the number of done tasks
+ * @param overdue        tasks due before today
+ * @param dueThisWeek    tasks due from today to the end of the current week (Sunday)
+ * @param highPriority   tasks of {@link Task.Priority#HIGH} priority, including overdue ones
+ * @param mediumPriority tasks of {@link Task.Priority#MEDIUM} priority
+ * @param lowPriority    tasks of {@link Task.Priority#LOW} priority, including those without a due date
+ */
+public record TaskStats(long total, long done, long overdue, long dueThisWeek, long highPriority,
+                        long mediumPriority, long lowPriority) {
+
+    static final TaskStats EMPTY = new TaskStats(0, 0, 0, 0, 0, 0, 0);
+
+    public long open() {
+        return total - done;
+    }
+
+    public long byPriority(Task.Priority priority) {
+        return switch (priority) {
+            case HIGH -> highPriority;
+            case MEDIUM -> mediumPriority;
+            case LOW -> lowPriority;
+        };
+    }
+}
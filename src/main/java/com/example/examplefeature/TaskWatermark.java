@@ -0,0 +1,31 @@
+package com.example.examplefeature;
+
+import java.time.Instant;
+
+/**
+ * Summary of the state of all tasks that changes whenever a change to the tasks is committed. Used to answer
+ * conditional requests without loading any tasks.
+ * <p>
+ * Timestamps of the changes themselves are taken before they are committed, so a change with an earlier timestamp can
+ * become visible after one with a later timestamp. The watermark is therefore kept by the application instead, after
+ * each commit.
+ * </p>
+ *
+ * @param run          identifies the run of the application instance that keeps the watermark
+ * @param version      the number of committed changes this run has seen
+ * @param lastModified when this run last saw a change committed, or when it started
+ */
+public record TaskWatermark(String run, long version, Instant lastModified) {
+
+    TaskWatermark next(Instant lastModified) {
+        return new TaskWatermark(run, version + 1, lastModified);
+    }
+
+    /**
+     * Returns a weak entity tag for this state. It is weak so that the servlet container still compresses responses
+     * that carry it.
+     */
+    public String etag() {
+        return "W/\"" + run + "-" + version + "\"";
+    }
+}
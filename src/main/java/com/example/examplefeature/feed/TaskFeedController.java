@@ -0,0 +1,89 @@
+package com.example.examplefeature.feed;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import com.example.examplefeature.TaskExporter;
+import com.example.examplefeature.TaskService;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Publishes all tasks as an iCalendar feed that calendar clients can subscribe to (as {@code webcal://} URL).
+ * <p>
+ * Clients poll the feed, so every response carries an entity tag and a last modified date derived from the
+ * {@linkplain TaskService#watermark() watermark} of the tasks. As long as nothing changes, conditional requests are
+ * answered with {@code 304 Not Modified} without loading a single task, and the full feed is served from the export
+ * {@link TaskExporter} keeps on disk. The request thread is not held while an export runs: the response completes
+ * asynchronously once the export is done.
+ * </p>
+ * <p>
+ * With {@code since}, only the tasks changed after that instant are rendered. Tasks are stamped when they are changed,
+ * not when the change is committed, and instances may disagree on the time, so a change committed after a client's
+ * last poll may carry an earlier time. Tasks changed up to {@code app.tasks.feed.delta-overlap-seconds} before
+ * {@code since} are therefore sent again. Clients replace them by their UID.
+ * </p>
+ * <p>
+ * With {@code archived=true}, the full feed also includes the tasks that have been moved to the archive. Deltas never
+ * include them, as archived tasks don't change.
+ * </p>
+ */
+@RestController
+class TaskFeedController {
+
+    static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar");
+
+    private final TaskService taskService;
+    private final TaskExporter taskExporter;
+    private final Duration deltaOverlap;
+
+    TaskFeedController(TaskService taskService, TaskExporter taskExporter,
+                       @Value("${app.tasks.feed.delta-overlap-seconds:300}") int deltaOverlapSeconds) {
+        this.taskService = taskService;
+        this.taskExporter = taskExporter;
+        this.deltaOverlap = Duration.ofSeconds(deltaOverlapSeconds);
+    }
+
+    @GetMapping("/feed/tasks.ics")
+    CompletableFuture<ResponseEntity<StreamingResponseBody>> tasks(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Nullable Instant since,
+            @RequestParam(defaultValue = "false") boolean archived, WebRequest request) {
+        var watermark = taskService.watermark();
+        if (request.checkNotModified(watermark.etag(), watermark.lastModified().toEpochMilli())) {
+            // The validators have already been added to the response
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        }
+        if (since != null) {
+            return CompletableFuture.completedFuture(
+                    calendar(out -> taskService.exportTasksToIcs(out, since.minus(deltaOverlap))));
+        }
+        var export = taskExporter.startExport(archived, progress -> {
+        });
+        return export.result().thenApply(file -> calendar(out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                export.release();
+            }
+        }));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> calendar(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.examplefeature.ui;
+
+import static com.vaadin.flow.spring.data.VaadinSpringDataHelpers.toSpringPageRequest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.example.examplefeature.TaskCursor;
+import com.example.examplefeature.TaskFilter;
+import com.example.examplefeature.TaskRow;
+import com.example.examplefeature.TaskService;
+import com.vaadin.flow.data.provider.Query;
+
+/**
+ * Fetch callback for a lazy task grid that uses keyset paging whenever it can. The grid asks for rows by offset, so
+ * the fetcher remembers the cursor at the end of every page it has loaded; the next page can then be read by seeking
+ * to that cursor. Only when the grid jumps to a page it has not seen yet does it fall back to offset paging. With a
+ * filter, the pages are read from {@link TaskService#searchAfter(TaskFilter, TaskCursor, int)} instead.
+ * <p>
+ * Tasks are only ever appended in creation order, so remembered cursors stay valid when new tasks are added.
+ * </p>
+ */
+class TaskKeysetFetcher {
+
+    private final TaskService taskService;
+    private final TaskFilter filter;
+    private final Map<Integer, TaskCursor> cursorsByOffset = new HashMap<>();
+
+    TaskKeysetFetcher(TaskService taskService, TaskFilter filter) {
+        this.taskService = taskService;
+        this.filter = filter;
+    }
+
+    Stream<TaskRow> fetch(Query<TaskRow, Void> query) {
+        int offset = query.getOffset();
+        List<TaskRow> tasks;
+        if (offset == 0 || cursorsByOffset.containsKey(offset)) {
+            var cursor = cursorsByOffset.get(offset);
+            tasks = filter.isEmpty()
+                    ? taskService.listAfter(cursor, query.getLimit())
+                    : taskService.searchAfter(filter, cursor, query.getLimit());
+        } else {
+            tasks = filter.isEmpty()
+                    ? taskService.list(toSpringPageRequest(query))
+                    : taskService.search(filter, toSpringPageRequest(query));
+        }
+        if (!tasks.isEmpty()) {
+            cursorsByOffset.put(offset + tasks.size(), TaskCursor.of(tasks.getLast()));
+        }
+        return tasks.stream();
+    }
+
+    // Only used without a filter: a filtered grid doesn't know how many tasks match
+    int count(Query<TaskRow, Void> query) {
+        return (int) taskService.count();
+    }
+
+    void reset() {
+        cursorsByOffset.clear();
+    }
+}
@@ -2,46 +2,104 @@ package com.example.examplefeature.ui;
 
 import static com.vaadin.flow.spring.data.VaadinSpringDataHelpers.*;
 
-import java.io.ByteArrayInputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 
 import com.example.base.ui.component.ViewToolbar;
 import com.example.examplefeature.Task;
+import com.example.examplefeature.TaskChangeNotifier;
+import com.example.examplefeature.TaskChanges;
+import com.example.examplefeature.TaskDoneWriter;
+import com.example.examplefeature.TaskExportJob;
+import com.example.examplefeature.TaskExporter;
+import com.example.examplefeature.TaskFilter;
+import com.example.examplefeature.TaskImportResult;
+import com.example.examplefeature.TaskImporter;
+import com.example.examplefeature.TaskMetrics;
+import com.example.examplefeature.TaskRow;
 import com.example.examplefeature.TaskService;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.checkbox.Checkbox;
 import com.vaadin.flow.component.datepicker.DatePicker;
 import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Anchor;
+import com.vaadin.flow.component.html.AttachmentType;
 import com.vaadin.flow.component.html.Main;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
+import com.vaadin.flow.component.progressbar.ProgressBar;
+import com.vaadin.flow.component.select.Select;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.component.upload.Upload;
+import com.vaadin.flow.data.renderer.LitRenderer;
+import com.vaadin.flow.data.value.ValueChangeMode;
+import com.vaadin.flow.function.SerializableBiConsumer;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.streams.DownloadEvent;
+import com.vaadin.flow.server.streams.UploadEvent;
+import com.vaadin.flow.shared.Registration;
 import com.vaadin.flow.theme.lumo.LumoUtility;
+import org.jspecify.annotations.Nullable;
 
 @Route("")
 @PageTitle("Task List")
 @Menu(order = 0, icon = "vaadin:clipboard-check", title = "Task List")
 class TaskListView extends Main {
 
+    private static final String DONE_TEMPLATE = """
+            <vaadin-checkbox aria-label="Done" ?checked="${item.done}"
+                             @change="${e => setDone(e.target.checked)}"></vaadin-checkbox>""";
+
+    private static final String PRIORITY_TEMPLATE = "<span class=\"" + String.join(" ",
+            LumoUtility.FontWeight.BOLD,
+            LumoUtility.BorderRadius.MEDIUM,
+            LumoUtility.Padding.Horizontal.SMALL,
+            LumoUtility.TextAlignment.CENTER) + " priority-${item.priority.toLowerCase()}\">${item.priority}</span>";
+
     private final TaskService taskService;
+    private final TaskExporter taskExporter;
+    private final TaskImporter taskImporter;
+    private final TaskChangeNotifier taskChangeNotifier;
+    private final TaskDoneWriter taskDoneWriter;
+    private final TaskMetrics taskMetrics;
 
     private final TextField description;
     private final DatePicker dueDate;
     private final Button createBtn;
-    private final Grid<Task> taskGrid;
+    private final TextField search;
+    private final Select<Task.Priority> priorityFilter;
+    private final Checkbox hideDone;
+    private final Upload importUpload;
+    private final Grid<TaskRow> taskGrid;
+    private TaskKeysetFetcher taskFetcher;
+    private Registration changeRegistration;
+    private @Nullable TaskExportJob exportJob;
+    // The export offered for download, whose file is kept until it has been downloaded, dismissed or replaced by
+    // another export, or the view is detached
+    private @Nullable TaskExportJob readyExport;
+    private @Nullable Notification readyNotification;
 
-    TaskListView(TaskService taskService) {
+    TaskListView(TaskService taskService, TaskExporter taskExporter, TaskImporter taskImporter,
+                 TaskChangeNotifier taskChangeNotifier, TaskDoneWriter taskDoneWriter, TaskMetrics taskMetrics) {
         this.taskService = taskService;
+        this.taskExporter = taskExporter;
+        this.taskImporter = taskImporter;
+        this.taskChangeNotifier = taskChangeNotifier;
+        this.taskDoneWriter = taskDoneWriter;
+        this.taskMetrics = taskMetrics;
 
         // Task description input
         description = new TextField();
@@ -59,6 +117,26 @@ class TaskListView extends Main {
         createBtn = new Button("Create", event -> createTask());
         createBtn.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
 
+        // Search and filters
+        search = new TextField();
+        search.setPlaceholder("Search");
+        search.setAriaLabel("Search tasks");
+        search.setPrefixComponent(VaadinIcon.SEARCH.create());
+        search.setClearButtonVisible(true);
+        search.setValueChangeMode(ValueChangeMode.LAZY);
+        search.addValueChangeListener(event -> applyFilter());
+
+        priorityFilter = new Select<>();
+        priorityFilter.setAriaLabel("Priority");
+        priorityFilter.setItems(Task.Priority.values());
+        priorityFilter.setEmptySelectionAllowed(true);
+        priorityFilter.setEmptySelectionCaption("Any priority");
+        // Also called for the empty selection, with null
+        priorityFilter.setItemLabelGenerator(priority -> priority == null ? "" : priority.getDisplayName());
+        priorityFilter.addValueChangeListener(event -> applyFilter());
+
+        hideDone = new Checkbox("Hide done", event -> applyFilter());
+
         // Sort by priority button
         Button sortBtn = new Button("Sort by Priority", event -> sortByPriority());
         sortBtn.addThemeVariants(ButtonVariant.LUMO_CONTRAST);
@@ -72,42 +150,16 @@ class TaskListView extends Main {
 
         // Task grid
         taskGrid = new Grid<>();
-        taskGrid.setItems(query -> taskService.list(toSpringPageRequest(query)).stream());
-        taskGrid.addColumn(Task::getDescription).setHeader("Description");
-        taskGrid.addColumn(task -> Optional.ofNullable(task.getDueDate()).map(dateFormatter::format).orElse("Never"))
+        showAllTasks();
+        taskGrid.addColumn(TaskRow::description).setHeader("Description");
+        taskGrid.addColumn(task -> Optional.ofNullable(task.dueDate()).map(dateFormatter::format).orElse("Never"))
                 .setHeader("Due Date");
-        taskGrid.addColumn(task -> dateTimeFormatter.format(task.getCreationDate())).setHeader("Creation Date");
+        taskGrid.addColumn(task -> dateTimeFormatter.format(task.creationDate())).setHeader("Creation Date");
 
-        // Done checkbox column
-        taskGrid.addComponentColumn(task -> {
-            Checkbox checkbox = new Checkbox(task.isDone());
-            checkbox.addValueChangeListener(event -> {
-                taskService.updateTaskDone(task.getId(), event.getValue());
-                Notification.show("Task updated", 1000, Notification.Position.BOTTOM_END)
-                        .addThemeVariants(NotificationVariant.LUMO_CONTRAST);
-            });
-            return checkbox;
-        }).setHeader("Done");
-
-        // Priority badge column
-        taskGrid.addComponentColumn(task -> {
-            Span priorityBadge = new Span(task.getPriority().getDisplayName());
-            priorityBadge.addClassNames(
-                    LumoUtility.FontWeight.BOLD,
-                    LumoUtility.BorderRadius.MEDIUM,
-                    LumoUtility.Padding.Horizontal.SMALL,
-                    LumoUtility.TextAlignment.CENTER
-            );
-            switch (task.getPriority()) {
-                case HIGH -> priorityBadge.addClassNames("priority-high");
-                case MEDIUM -> priorityBadge.addClassNames("priority-medium");
-                case LOW -> priorityBadge.addClassNames("priority-low");
-            }
-            return priorityBadge;
-        }).setHeader("Priority");
+        addDoneAndPriorityColumns(taskGrid, this::updateTaskDone);
 
-        // Row background color
-        taskGrid.setClassNameGenerator(task -> "custom-row-" + task.getColor().substring(1));
+        // Row background color, from the fixed palette styled in the theme
+        taskGrid.setPartNameGenerator(task -> task.color().getPartName());
         taskGrid.setSizeFull();
 
         setSizeFull();
@@ -115,54 +167,215 @@ class TaskListView extends Main {
                 LumoUtility.Padding.MEDIUM, LumoUtility.Gap.SMALL);
 
         // Toolbar
-        var exportBtn = new Button(VaadinIcon.DOWNLOAD_ALT.create(), event -> exportTasks());
+        var exportBtn = new Button(VaadinIcon.DOWNLOAD_ALT.create());
         exportBtn.setText("Export to Calendar");
         exportBtn.setAriaLabel("Export tasks to calendar");
         exportBtn.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
+        exportBtn.setDisableOnClick(true);
+        exportBtn.addClickListener(event -> exportTasks(exportBtn));
 
-        add(new ViewToolbar("Task List", ViewToolbar.group(description, dueDate, createBtn, sortBtn, exportBtn)));
+        var importBtn = new Button(VaadinIcon.UPLOAD_ALT.create());
+        importBtn.setText("Import from Calendar");
+        importBtn.setAriaLabel("Import tasks from calendar");
+        importBtn.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
+        importUpload = new Upload(this::importTasks);
+        importUpload.setUploadButton(importBtn);
+        importUpload.setAcceptedFileTypes("text/calendar", ".ics");
+        importUpload.setMaxFiles(1);
+        importUpload.setDropAllowed(false);
+
+        add(new ViewToolbar("Task List",
+                ViewToolbar.group(description, dueDate, createBtn, sortBtn, exportBtn, importUpload),
+                ViewToolbar.group(search, priorityFilter, hideDone)));
         add(taskGrid);
     }
 
+    /**
+     * Adds the Done and Priority columns. They are rendered in the browser from plain row properties, so unlike
+     * component columns, they create no server-side components or listeners per row; see TaskGridSessionSizeTest.
+     */
+    static void addDoneAndPriorityColumns(Grid<TaskRow> grid, SerializableBiConsumer<TaskRow, Boolean> doneListener) {
+        grid.addColumn(LitRenderer.<TaskRow>of(DONE_TEMPLATE)
+                .withProperty("done", TaskRow::done)
+                .withFunction("setDone", (task, args) -> doneListener.accept(task, args.getBoolean(0))))
+                .setHeader("Done");
+        grid.addColumn(LitRenderer.<TaskRow>of(PRIORITY_TEMPLATE)
+                .withProperty("priority", task -> task.priority().getDisplayName()))
+                .setHeader("Priority");
+    }
+
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        var ui = attachEvent.getUI();
+        changeRegistration = taskChangeNotifier.addListener(changes -> ui.access(() -> applyChanges(changes)));
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        changeRegistration.remove();
+        if (exportJob != null) {
+            exportJob.cancel();
+            exportJob.release();
+        }
+        dismissReadyExport();
+    }
+
+    private void applyChanges(TaskChanges changes) {
+        if (changes.sizeChanged() || changes.updatedTasksOmitted()) {
+            taskFetcher.reset();
+            taskGrid.getDataProvider().refreshAll();
+        } else {
+            changes.updatedTasks().forEach(taskGrid.getDataProvider()::refreshItem);
+        }
+    }
+
+    private void updateTaskDone(TaskRow task, boolean done) {
+        // Written together with other changes shortly after, so a conflict is only known once the write is done
+        var ui = UI.getCurrent();
+        taskDoneWriter.setDone(task, done, ui).whenComplete((written, error) -> ui.access(() -> {
+            if (error == null) {
+                taskGrid.getDataProvider().refreshItem(written);
+                Notification.show("Task updated", 1000, Notification.Position.BOTTOM_END)
+                        .addThemeVariants(NotificationVariant.LUMO_CONTRAST);
+            } else {
+                taskService.findById(task.id()).ifPresentOrElse(taskGrid.getDataProvider()::refreshItem,
+                        taskGrid.getDataProvider()::refreshAll);
+                Notification.show("The task was changed by someone else. Please check it and try again.", 5000,
+                        Notification.Position.BOTTOM_END).addThemeVariants(NotificationVariant.LUMO_ERROR);
+            }
+        }));
+    }
+
     private void createTask() {
+        // The grid picks up the new task through the change notification, like the grids in other sessions
         taskService.createTask(description.getValue(), dueDate.getValue());
-        taskGrid.getDataProvider().refreshAll();
         description.clear();
         dueDate.clear();
         Notification.show("Task added", 3000, Notification.Position.BOTTOM_END)
                 .addThemeVariants(NotificationVariant.LUMO_SUCCESS);
     }
 
+    private void showAllTasks() {
+        var allTasksFetcher = new TaskKeysetFetcher(taskService, TaskFilter.NONE);
+        taskFetcher = allTasksFetcher;
+        taskGrid.setItems(
+                query -> taskMetrics.timeGridCallback("task-list", "fetch", () -> allTasksFetcher.fetch(query)),
+                query -> taskMetrics.timeGridCallback("task-list", "count", () -> allTasksFetcher.count(query)))
+                .setIdentifierProvider(TaskRow::id);
+    }
+
+    private void applyFilter() {
+        var filter = new TaskFilter(search.getValue(), hideDone.getValue() ? false : null, null, null,
+                priorityFilter.getValue());
+        if (filter.isEmpty()) {
+            showAllTasks();
+        } else {
+            var searchFetcher = new TaskKeysetFetcher(taskService, filter);
+            taskFetcher = searchFetcher;
+            taskGrid.setItems(query -> taskMetrics.timeGridCallback("task-list", "search",
+                    () -> searchFetcher.fetch(query)))
+                    .setIdentifierProvider(TaskRow::id);
+        }
+    }
+
     private void sortByPriority() {
-        taskGrid.setItems(query -> taskService.listSortedByPriority(toSpringPageRequest(query)).stream());
+        taskGrid.setItems(query -> taskMetrics.timeGridCallback("task-list", "fetch-by-priority",
+                () -> taskService.listSortedByPriority(toSpringPageRequest(query)).stream()))
+                .setIdentifierProvider(TaskRow::id);
         Notification.show("Tasks sorted by priority", 2000, Notification.Position.BOTTOM_END)
                 .addThemeVariants(NotificationVariant.LUMO_PRIMARY);
     }
 
-    private void exportTasks() {
-        try {
-            String icsContent = taskService.exportTasksToIcs();
-
-            getUI().ifPresent(ui -> {
-                String js = """
-                const blob = new Blob([new TextEncoder().encode($0)], { type: 'text/calendar;charset=utf-8' });
-                const a = document.createElement('a');
-                a.href = URL.createObjectURL(blob);
-                a.download = 'tasks.ics';
-                document.body.appendChild(a);
-                a.click();
-                document.body.removeChild(a);
-            """;
-                ui.getPage().executeJs(js, icsContent);
+    private void importTasks(UploadEvent event) throws IOException {
+        // The file is imported while it is being received, so it is never held in memory or stored
+        TaskImportResult result;
+        try (var in = event.getInputStream()) {
+            result = taskImporter.importTasks(in);
+        } catch (IllegalArgumentException e) {
+            event.getUI().access(() -> {
+                importUpload.clearFileList();
+                Notification.show(e.getMessage(), 5000, Notification.Position.BOTTOM_END)
+                        .addThemeVariants(NotificationVariant.LUMO_ERROR);
             });
+            return;
+        }
+        // New tasks reach the grid through the change notification
+        event.getUI().access(() -> {
+            importUpload.clearFileList();
+            Notification.show("Imported %d new and %d changed tasks".formatted(result.created(), result.updated()),
+                    3000, Notification.Position.BOTTOM_END).addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+        });
+    }
+
+    private void exportTasks(Button exportBtn) {
+        dismissReadyExport();
+        // The export runs on the task job executor; progress and the result are pushed back to this UI
+        var ui = UI.getCurrent();
+        var progressBar = new ProgressBar();
+        var job = taskExporter.startExport(progress -> ui.access(() -> progressBar.setValue(progress)));
+        if (job.isCached()) {
+            exportBtn.setEnabled(true);
+            showExportReady(job);
+            return;
+        }
+        exportJob = job;
+        var progressNotification = new Notification(new Span("Exporting tasks"), progressBar,
+                new Button("Cancel", event -> job.cancel()));
+        progressNotification.setPosition(Notification.Position.BOTTOM_END);
+        progressNotification.setDuration(0);
+        progressNotification.open();
+        job.result().whenComplete((file, error) -> ui.access(() -> {
+            exportJob = null;
+            progressNotification.close();
+            exportBtn.setEnabled(true);
+            if (error instanceof CancellationException) {
+                Notification.show("Export cancelled", 3000, Notification.Position.BOTTOM_END);
+            } else if (error != null) {
+                Notification.show("Export failed", 5000, Notification.Position.BOTTOM_END)
+                        .addThemeVariants(NotificationVariant.LUMO_ERROR);
+            } else {
+                showExportReady(job);
+            }
+        }));
+    }
 
-            Notification.show("Tasks exported to calendar", 3000, Notification.Position.BOTTOM_END)
-                    .addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+    private void showExportReady(TaskExportJob job) {
+        dismissReadyExport();
+        var notification = new Notification();
+        var downloadLink = new Anchor(event -> downloadExport(event, job), AttachmentType.DOWNLOAD,
+                "Download tasks.ics");
+        downloadLink.getElement().addEventListener("click", event -> notification.close());
+        var closeBtn = new Button(VaadinIcon.CLOSE_SMALL.create(), event -> dismissReadyExport());
+        closeBtn.setAriaLabel("Dismiss export");
+        closeBtn.addThemeVariants(ButtonVariant.LUMO_TERTIARY_INLINE);
+        notification.add(new Span("Export ready"), downloadLink, closeBtn);
+        notification.setPosition(Notification.Position.BOTTOM_END);
+        notification.setDuration(0);
+        notification.open();
+        readyExport = job;
+        readyNotification = notification;
+    }
 
-        } catch (Exception e) {
-            Notification.show("Error exporting tasks: " + e.getMessage(), 5000, Notification.Position.BOTTOM_END)
-                    .addThemeVariants(NotificationVariant.LUMO_ERROR);
+    // Releasing is idempotent, so this is safe after the export has already been downloaded
+    private void dismissReadyExport() {
+        if (readyNotification != null) {
+            readyNotification.close();
+            readyNotification = null;
+        }
+        if (readyExport != null) {
+            readyExport.release();
+            readyExport = null;
         }
     }
 
+    // The link is only offered once, so the file is released as soon as it has been sent
+    private void downloadExport(DownloadEvent event, TaskExportJob job) throws IOException {
+        event.setFileName("tasks.ics");
+        event.setContentType("text/calendar;charset=utf-8");
+        try {
+            Files.copy(job.result().join(), event.getOutputStream());
+        } finally {
+            job.release();
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package com.example.examplefeature.ui;
+
+import com.example.base.ui.component.ViewToolbar;
+import com.example.examplefeature.Task;
+import com.example.examplefeature.TaskChangeNotifier;
+import com.example.examplefeature.TaskStatistics;
+import com.example.examplefeature.TaskStats;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.H3;
+import com.vaadin.flow.component.html.Main;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.router.Menu;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.shared.Registration;
+import com.vaadin.flow.theme.lumo.LumoUtility;
+
+@Route("statistics")
+@PageTitle("Statistics")
+@Menu(order = 1, icon = "vaadin:chart", title = "Statistics")
+class TaskStatisticsView extends Main {
+
+    private final TaskStatistics taskStatistics;
+    private final TaskChangeNotifier taskChangeNotifier;
+
+    private final Span total = new Span();
+    private final Span done = new Span();
+    private final Span overdue = new Span();
+    private final Span dueThisWeek = new Span();
+    private final Span highPriority = new Span();
+    private final Span mediumPriority = new Span();
+    private final Span lowPriority = new Span();
+
+    private Registration changeRegistration;
+
+    TaskStatisticsView(TaskStatistics taskStatistics, TaskChangeNotifier taskChangeNotifier) {
+        this.taskStatistics = taskStatistics;
+        this.taskChangeNotifier = taskChangeNotifier;
+
+        var counts = createCardRow(
+                createCard("Total", total),
+                createCard("Done", done),
+                createCard("Overdue", overdue),
+                createCard("Due this week", dueThisWeek));
+        var priorities = createCardRow(
+                createCard(Task.Priority.HIGH.getDisplayName(), highPriority),
+                createCard(Task.Priority.MEDIUM.getDisplayName(), mediumPriority),
+                createCard(Task.Priority.LOW.getDisplayName(), lowPriority));
+        showStats();
+
+        setSizeFull();
+        addClassNames(LumoUtility.BoxSizing.BORDER, LumoUtility.Display.FLEX, LumoUtility.FlexDirection.COLUMN,
+                LumoUtility.Padding.MEDIUM, LumoUtility.Gap.MEDIUM);
+        add(new ViewToolbar("Statistics"));
+        add(counts, new H3("Open tasks by priority"), priorities);
+    }
+
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        // The counts are maintained as tasks change, so showing them again costs no query
+        var ui = attachEvent.getUI();
+        changeRegistration = taskChangeNotifier.addListener(changes -> ui.access(this::showStats));
+        showStats();
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        changeRegistration.remove();
+    }
+
+    private void showStats() {
+        TaskStats stats = taskStatistics.current();
+        total.setText(String.valueOf(stats.total()));
+        done.setText(String.valueOf(stats.done()));
+        overdue.setText(String.valueOf(stats.overdue()));
+        dueThisWeek.setText(String.valueOf(stats.dueThisWeek()));
+        highPriority.setText(String.valueOf(stats.byPriority(Task.Priority.HIGH)));
+        mediumPriority.setText(String.valueOf(stats.byPriority(Task.Priority.MEDIUM)));
+        lowPriority.setText(String.valueOf(stats.byPriority(Task.Priority.LOW)));
+    }
+
+    private static Div createCardRow(Div... cards) {
+        var row = new Div(cards);
+        row.addClassNames(LumoUtility.Display.FLEX, LumoUtility.FlexWrap.WRAP, LumoUtility.Gap.MEDIUM);
+        return row;
+    }
+
+    private static Div createCard(String label, Span value) {
+        value.addClassNames(LumoUtility.FontSize.XXXLARGE, LumoUtility.FontWeight.SEMIBOLD);
+        var caption = new Span(label);
+        caption.addClassNames(LumoUtility.TextColor.SECONDARY);
+        var card = new Div(value, caption);
+        card.addClassNames(LumoUtility.Display.FLEX, LumoUtility.FlexDirection.COLUMN, LumoUtility.Padding.MEDIUM,
+                LumoUtility.BorderRadius.MEDIUM, LumoUtility.Background.CONTRAST_5);
+        card.setMinWidth("10em");
+        return card;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.examplefeature;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Changes are only written when the test calls flush(), within the test transaction
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        properties = "app.tasks.done-flush-interval-ms=3600000")
+@Transactional
+class TaskDoneWriterTest {
+
+    private static final Object REQUESTER = new Object();
+
+    @Autowired
+    TaskService taskService;
+
+    @Autowired
+    TaskDoneWriter taskDoneWriter;
+
+    @Test
+    public void repeated_changes_to_a_task_are_written_once() throws Exception {
+        taskService.createTask("Toggle me", null);
+        var task = taskService.list(PageRequest.ofSize(1)).getFirst();
+
+        var first = taskDoneWriter.setDone(task, true, REQUESTER);
+        var second = taskDoneWriter.setDone(task, false, REQUESTER);
+        var third = taskDoneWriter.setDone(task, true, REQUESTER);
+        taskDoneWriter.flush();
+
+        var written = third.get();
+        assertThat(written.done()).isTrue();
+        assertThat(written.version()).isEqualTo(task.version() + 1);
+        assertThat(first).isCompletedWithValue(written);
+        assertThat(second).isCompletedWithValue(written);
+        assertThat(taskService.findById(task.id())).hasValue(written);
+    }
+
+    @Test
+    public void opposite_changes_of_two_requesters_are_not_merged() throws Exception {
+        taskService.createTask("Ticked twice", null);
+        var task = taskService.list(PageRequest.ofSize(1)).getFirst();
+
+        var mine = taskDoneWriter.setDone(task, true, REQUESTER);
+        var theirs = taskDoneWriter.setDone(task, false, new Object());
+        var same = taskDoneWriter.setDone(task, true, new Object());
+        taskDoneWriter.flush();
+
+        assertThat(theirs).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(mine.get().done()).isTrue();
+        assertThat(same).isCompletedWithValue(mine.get());
+    }
+
+    @Test
+    public void changes_based_on_an_outdated_task_are_rejected() {
+        taskService.createTask("Changed elsewhere", null);
+        var task = taskService.list(PageRequest.ofSize(1)).getFirst();
+        taskService.updateTaskDone(task.id(), true);
+
+        var result = taskDoneWriter.setDone(task, false, REQUESTER);
+        taskDoneWriter.flush();
+
+        assertThat(result).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(taskService.findById(task.id())).hasValueSatisfying(current -> assertThat(current.done()).isTrue());
+    }
+
+    @Test
+    public void a_conflict_while_writing_only_rejects_the_conflicting_change() {
+        var taskService = new ConflictingTaskService(2L);
+        var taskDoneWriter = new TaskDoneWriter(taskService);
+
+        var unchanged = taskDoneWriter.setDone(row(1L), true, REQUESTER);
+        var changed = taskDoneWriter.setDone(row(2L), true, REQUESTER);
+        taskDoneWriter.flush();
+
+        assertThat(unchanged).isCompletedWithValueMatching(TaskRow::done);
+        assertThat(changed).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(taskService.writes).containsExactly(2, 1, 1);
+    }
+
+    private static TaskRow row(Long id) {
+        return new TaskRow(id, 0, "Task " + id, Instant.EPOCH, null, false, Task.Color.values()[0], null);
+    }
+
+    // Stands in for a database in which a task has been changed after the writer read it, which only shows when the
+    // transaction is written, and then fails all the changes written with it
+    private static class ConflictingTaskService extends TaskService {
+
+        private final Long changedId;
+        private final List<Integer> writes = new ArrayList<>();
+
+        ConflictingTaskService(Long changedId) {
+            super(null, null, null, null, null, null, null);
+            this.changedId = changedId;
+        }
+
+        @Override
+        Map<Long, TaskRow> applyDoneUpdates(Map<Long, TaskDoneWriter.Update> updates) {
+            writes.add(updates.size());
+            if (updates.containsKey(changedId)) {
+                throw new ObjectOptimisticLockingFailureException(Task.class, changedId);
+            }
+            var written = new HashMap<Long, TaskRow>();
+            updates.forEach((id, update) -> written.put(id, row(id).withDone(update.done())));
+            return written;
+        }
+    }
+}
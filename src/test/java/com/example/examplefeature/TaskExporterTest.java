@@ -0,0 +1,80 @@
+package com.example.examplefeature;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+class TaskExporterTest {
+
+    @Autowired
+    TaskExporter taskExporter;
+
+    @Test
+    public void export_is_written_to_a_file_in_the_background() throws Exception {
+        taskExporter.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, List.of(1L)));
+        var job = taskExporter.startExport(progress -> {
+        });
+        assertThat(job.isCached()).isFalse();
+        var file = job.result().get(30, TimeUnit.SECONDS);
+        assertThat(Files.readString(file)).startsWith("BEGIN:VCALENDAR").endsWith("END:VCALENDAR\r\n");
+        job.release();
+    }
+
+    @Test
+    public void export_of_unchanged_tasks_is_served_from_disk() throws Exception {
+        var first = taskExporter.startExport(progress -> {
+        });
+        var file = first.result().get(30, TimeUnit.SECONDS);
+        var second = taskExporter.startExport(progress -> {
+        });
+        assertThat(second.isCached()).isTrue();
+        assertThat(second.result()).isCompletedWithValue(file);
+
+        taskExporter.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, List.of(1L)));
+        var third = taskExporter.startExport(progress -> {
+        });
+        assertThat(third.isCached()).isFalse();
+        assertThat(third.result().get(30, TimeUnit.SECONDS)).isNotEqualTo(file);
+
+        // The outdated file is kept until every job that handed it out has been released
+        assertThat(file).exists();
+        first.release();
+        assertThat(file).exists();
+        second.release();
+        assertThat(file).doesNotExist();
+        assertThat(third.result().get()).exists();
+        third.release();
+    }
+
+    @Test
+    public void exports_of_the_same_tasks_share_one_running_export() throws Exception {
+        taskExporter.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, List.of(1L)));
+        var first = taskExporter.startExport(progress -> {
+        });
+        var second = taskExporter.startExport(progress -> {
+        });
+        var file = second.result().get(30, TimeUnit.SECONDS);
+        assertThat(first.result().get(30, TimeUnit.SECONDS)).isEqualTo(file);
+
+        // Cancelling one job leaves the file to the other ones
+        taskExporter.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, List.of(1L)));
+        var cancelled = taskExporter.startExport(progress -> {
+        });
+        var kept = taskExporter.startExport(progress -> {
+        });
+        cancelled.cancel();
+        assertThat(kept.result().get(30, TimeUnit.SECONDS)).exists();
+        assertThat(cancelled.result()).isCancelled();
+
+        first.release();
+        second.release();
+        kept.release();
+    }
+}
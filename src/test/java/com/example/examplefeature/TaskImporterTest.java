@@ -0,0 +1,112 @@
+package com.example.examplefeature;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@Transactional
+class TaskImporterTest {
+
+    @Autowired
+    TaskImporter taskImporter;
+
+    @Autowired
+    TaskRepository taskRepository;
+
+    @Autowired
+    TaskService taskService;
+
+    @Test
+    public void events_are_imported_as_tasks() throws Exception {
+        var result = taskImporter.importTasks(calendar(
+                event("import-1", "Pay the rent\\, finally", "DTEND;VALUE=DATE:20250207"),
+                event("import-2", "Call mom", "DTEND:20250210T180000"),
+                event("import-4", "Buy flowers", "DTEND:20250214"),
+                event(null, "Water the plants", null)));
+        assertThat(result).isEqualTo(new TaskImportResult(4, 0));
+        // All-day events end the day after their last day
+        assertThat(taskRepository.findByIcalUidIn(List.of("import-1", "import-2", "import-4")))
+                .extracting(Task::getDescription, Task::getDueDate)
+                .containsExactlyInAnyOrder(
+                        tuple("Pay the rent, finally", LocalDate.of(2025, 2, 6)),
+                        tuple("Call mom", LocalDate.of(2025, 2, 10)),
+                        tuple("Buy flowers", LocalDate.of(2025, 2, 13)));
+    }
+
+    @Test
+    public void importing_the_same_events_again_updates_instead_of_duplicating() throws Exception {
+        taskImporter.importTasks(calendar(event("import-3", "Old", "DTEND;VALUE=DATE:20250207")));
+        assertThat(taskImporter.importTasks(calendar(event("import-3", "Old", "DTEND;VALUE=DATE:20250207"))))
+                .isEqualTo(new TaskImportResult(0, 0));
+        assertThat(taskImporter.importTasks(calendar(event("import-3", "New", "DTEND;VALUE=DATE:20250208"))))
+                .isEqualTo(new TaskImportResult(0, 1));
+    }
+
+    @Test
+    public void importing_an_export_does_not_duplicate_tasks() throws Exception {
+        taskService.createTasks(List.of(new NewTask("Exported", LocalDate.of(2025, 2, 7)),
+                new NewTask("Exported without due date", null)));
+        var taskCount = taskRepository.count();
+
+        var export = new ByteArrayOutputStream();
+        taskService.exportTasksToIcs(export);
+        var result = taskImporter.importTasks(new ByteArrayInputStream(export.toByteArray()));
+
+        assertThat(result.created()).isZero();
+        assertThat(taskRepository.count()).isEqualTo(taskCount);
+    }
+
+    @Test
+    public void importing_an_export_from_before_tasks_had_a_uid_does_not_duplicate_tasks() throws Exception {
+        var taskWithoutUid = new Task("Exported before tasks had a UID", Instant.now());
+        taskWithoutUid.setDueDate(LocalDate.of(2025, 2, 7));
+        taskWithoutUid.setIcalUid(null);
+        taskRepository.saveAndFlush(taskWithoutUid);
+        var export = new ByteArrayOutputStream();
+        taskService.exportTasksToIcs(export);
+
+        taskService.assignMissingIcalUids();
+        var taskCount = taskRepository.count();
+        var result = taskImporter.importTasks(new ByteArrayInputStream(export.toByteArray()));
+
+        assertThat(result.created()).isZero();
+        assertThat(taskRepository.count()).isEqualTo(taskCount);
+        assertThat(taskRepository.findById(taskWithoutUid.getId()).orElseThrow().getIcalUid())
+                .isEqualTo(String.valueOf(taskWithoutUid.getId()));
+    }
+
+    @Test
+    public void invalid_files_are_rejected() {
+        assertThatThrownBy(() -> taskImporter.importTasks(calendar("BEGIN:VEVENT\r\nnonsense\r\n")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String event(@Nullable String uid, String summary, @Nullable String dtEnd) {
+        return "BEGIN:VEVENT\r\n"
+                + (uid == null ? "" : "UID:" + uid + "\r\n")
+                + "SUMMARY:" + summary + "\r\n"
+                + (dtEnd == null ? "" : dtEnd + "\r\n")
+                + "BEGIN:VALARM\r\nSUMMARY:Not the task\r\nEND:VALARM\r\n"
+                + "END:VEVENT\r\n";
+    }
+
+    private static ByteArrayInputStream calendar(String... events) {
+        var ics = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Test//EN\r\n" + String.join("", events)
+                + "END:VCALENDAR\r\n";
+        return new ByteArrayInputStream(ics.getBytes(StandardCharsets.UTF_8));
+    }
+}
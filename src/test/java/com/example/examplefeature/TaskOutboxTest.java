@@ -0,0 +1,76 @@
+package com.example.examplefeature;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Events are only polled when the test calls poll(). The events refer to tasks that don't exist, so other tests that
+// share the database are not affected.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        properties = "app.tasks.outbox.poll-interval-ms=3600000")
+@RecordApplicationEvents
+class TaskOutboxTest {
+
+    @Autowired
+    TaskOutbox taskOutbox;
+
+    @Autowired
+    TaskOutboxRepository outboxRepository;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ApplicationEvents events;
+
+    @Test
+    public void committed_changes_are_recorded_in_chunks() {
+        var lastId = outboxRepository.findLastId();
+        var taskIds = LongStream.rangeClosed(1, TaskOutbox.MAX_IDS_PER_EVENT + 1).boxed().toList();
+        // Cancel each other out in the statistics of other test contexts, which poll the same database
+        var countChanges = List.of(new TaskCountByDueDate(LocalDate.of(2025, 2, 7), true, -3),
+                new TaskCountByDueDate(null, true, 3));
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(
+                new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, taskIds, countChanges)));
+
+        var recorded = outboxRepository.findAfter(lastId, Limit.unlimited());
+        assertThat(recorded).hasSize(2).allMatch(event -> event.getInstanceId().equals(taskOutbox.getInstanceId()));
+        assertThat(recorded.stream().flatMap(event -> event.toChangedEvent().taskIds().stream()))
+                .containsExactlyInAnyOrderElementsOf(taskIds);
+        assertThat(recorded).extracting(event -> event.toChangedEvent().countChanges())
+                .containsExactly(countChanges, List.of());
+    }
+
+    @Test
+    public void changes_of_other_instances_are_published_once() {
+        taskOutbox.poll();
+        var watermark = taskOutbox.getWatermark();
+        outboxRepository.saveAll(List.of(
+                new TaskOutboxEvent("other", TaskChangedEvent.Type.CREATED, List.of(-1L, -2L), Instant.now()),
+                new TaskOutboxEvent(taskOutbox.getInstanceId(), TaskChangedEvent.Type.UPDATED, List.of(-3L),
+                        Instant.now())));
+        events.clear();
+
+        taskOutbox.poll();
+        taskOutbox.poll();
+
+        assertThat(events.stream(TaskChangedEvent.class))
+                .containsExactly(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, List.of(-1L, -2L)));
+        assertThat(taskOutbox.getWatermark()).isEqualTo(watermark + 2);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.examplefeature;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// The test transaction is rolled back, so tasks are passed to the reminders by the test itself
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "app.tasks.reminders.check-interval-ms=3600000"
+})
+@Transactional
+class TaskRemindersTest {
+
+    @Autowired
+    TaskService taskService;
+
+    @Autowired
+    TaskReminders taskReminders;
+
+    @Test
+    public void tasks_are_reminded_of_on_the_day_they_become_more_urgent() {
+        var today = DailyClock.todayAsDate();
+        taskService.createTask("In five days", today.plusDays(5));
+        taskService.createTask("In two days", today.plusDays(2));
+        taskService.createTask("Tomorrow", today.plusDays(1));
+        taskService.createTask("Yesterday", today.minusDays(1));
+        taskService.createTask("Done", today.plusDays(2));
+        addAllTasks();
+        taskService.updateTaskDone(findId("Done"), true);
+
+        assertThat(fire(today)).extracting(reminder -> reminder.task().description(), TaskReminder::type)
+                .containsExactlyInAnyOrder(
+                        tuple("In five days", TaskReminder.Type.MEDIUM_PRIORITY),
+                        tuple("In two days", TaskReminder.Type.HIGH_PRIORITY),
+                        tuple("Yesterday", TaskReminder.Type.OVERDUE));
+    }
+
+    @Test
+    public void overdue_tasks_are_reminded_of_once() {
+        var today = DailyClock.todayAsDate();
+        taskService.createTask("Yesterday", today.minusDays(1));
+        addAllTasks();
+
+        assertThat(fire(today)).extracting(reminder -> reminder.task().description()).contains("Yesterday");
+        assertThat(fire(today.plusDays(1))).extracting(reminder -> reminder.task().description())
+                .doesNotContain("Yesterday");
+    }
+
+    @Test
+    public void tasks_that_are_not_done_again_are_reminded_of() {
+        var today = DailyClock.todayAsDate();
+        taskService.createTask("Undone", today.plusDays(2));
+        var undone = findId("Undone");
+        taskService.updateTaskDone(undone, true);
+        taskReminders.load(); // Leaves out the task, as it is done
+        var earlier = TransactionSynchronizationManager.getSynchronizations();
+        taskService.updateTaskDone(undone, false);
+        // The test transaction is not committed, so what the change does after commit is run by the test
+        TransactionSynchronizationManager.getSynchronizations().stream().filter(hook -> !earlier.contains(hook))
+                .forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(fire(today)).extracting(reminder -> reminder.task().description(), TaskReminder::type)
+                .contains(tuple("Undone", TaskReminder.Type.HIGH_PRIORITY));
+    }
+
+    @Test
+    public void the_reminders_of_the_day_are_fired_at_startup_and_kept_for_sessions_opened_later() {
+        var today = DailyClock.todayAsDate();
+        taskService.createTask("Became overdue while stopped", today.minusDays(1));
+        taskReminders.load();
+
+        var received = new ArrayList<TaskReminder>();
+        taskReminders.addListener(received::addAll).remove();
+        assertThat(received).extracting(reminder -> reminder.task().description(), TaskReminder::type)
+                .contains(tuple("Became overdue while stopped", TaskReminder.Type.OVERDUE));
+    }
+
+    private void addAllTasks() {
+        taskReminders.add(taskService.findAll());
+    }
+
+    private Long findId(String description) {
+        return taskService.findAll().stream().filter(task -> task.description().equals(description)).findFirst()
+                .orElseThrow().id();
+    }
+
+    private List<TaskReminder> fire(LocalDate day) {
+        var received = new ArrayList<TaskReminder>();
+        var registration = taskReminders.addListener(received::addAll);
+        received.clear(); // The reminders kept from earlier today
+        try {
+            taskReminders.fire(day.toEpochDay());
+        } finally {
+            registration.remove();
+        }
+        return received;
+    }
+}
@@ -1,16 +1,27 @@
 package com.example.examplefeature;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.commons.collections4.ListUtils;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
 @Transactional
@@ -19,14 +30,23 @@ class TaskServiceTest {
     @Autowired
     TaskService taskService;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    TaskSearchIndex searchIndex;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     @Test
     public void tasks_are_stored_in_the_database_with_the_current_timestamp() {
         var now = Instant.now();
         var due = LocalDate.of(2025, 2, 7);
         taskService.createTask("Do this", due);
         assertThat(taskService.list(PageRequest.ofSize(1))).singleElement()
-                .matches(task -> task.getDescription().equals("Do this") && due.equals(task.getDueDate())
-                        && task.getCreationDate().isAfter(now));
+                .matches(task -> task.description().equals("Do this") && due.equals(task.dueDate())
+                        && task.creationDate().isAfter(now));
     }
 
     @Test
@@ -34,4 +54,213 @@ class TaskServiceTest {
         assertThatThrownBy(() -> taskService.createTask("X".repeat(Task.DESCRIPTION_MAX_LENGTH + 1), null))
                 .isInstanceOf(IllegalArgumentException.class);
     }
+
+    @Test
+    public void exported_calendar_contains_one_event_per_task() throws Exception {
+        taskService.createTask("First", LocalDate.of(2025, 2, 7));
+        taskService.createTask("Second", null);
+        var out = new ByteArrayOutputStream();
+        taskService.exportTasksToIcs(out);
+        var ics = out.toString(StandardCharsets.UTF_8);
+        assertThat(ics).startsWith("BEGIN:VCALENDAR").endsWith("END:VCALENDAR\r\n");
+        assertThat(ics.split("BEGIN:VEVENT", -1)).hasSize(3);
+        assertThat(ics).contains("SUMMARY:First", "SUMMARY:Second");
+    }
+
+    @Test
+    public void only_tasks_changed_after_the_watermark_are_exported() throws Exception {
+        // The watermark moves after commit, which never happens in these rolled back tests
+        taskService.createTask("Unchanged", null);
+        taskService.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, List.of()));
+        var watermark = taskService.watermark();
+        Thread.sleep(1);
+        taskService.createTask("Changed", null);
+        taskService.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, List.of()));
+        assertThat(taskService.watermark().etag()).isNotEqualTo(watermark.etag());
+
+        var out = new ByteArrayOutputStream();
+        taskService.exportTasksToIcs(out, watermark.lastModified());
+        var ics = out.toString(StandardCharsets.UTF_8);
+        assertThat(ics).contains("SUMMARY:Changed").doesNotContain("SUMMARY:Unchanged");
+    }
+
+    @Test
+    public void tasks_sorted_by_priority_are_ordered_across_pages() {
+        var today = LocalDate.now();
+        taskService.createTask("Low", today.plusDays(30));
+        taskService.createTask("None", null);
+        taskService.createTask("High", today.plusDays(1));
+        taskService.createTask("Medium", today.plusDays(4));
+
+        var firstPage = taskService.listSortedByPriority(PageRequest.of(0, 2));
+        var secondPage = taskService.listSortedByPriority(PageRequest.of(1, 2));
+        assertThat(firstPage).extracting(TaskRow::description).containsExactly("High", "Medium");
+        assertThat(secondPage).extracting(TaskRow::description).containsExactly("Low", "None");
+    }
+
+    @Test
+    public void only_tasks_due_within_the_range_are_listed() {
+        taskService.createTask("Before", LocalDate.of(2025, 1, 31));
+        taskService.createTask("First day", LocalDate.of(2025, 2, 1));
+        taskService.createTask("Last day", LocalDate.of(2025, 2, 28));
+        taskService.createTask("After", LocalDate.of(2025, 3, 1));
+        taskService.createTask("Undated", null);
+        assertThat(taskService.listDueBetween(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28)))
+                .extracting(TaskRow::description).containsExactlyInAnyOrder("First day", "Last day");
+    }
+
+    @Test
+    public void tasks_can_be_paged_from_a_cursor_in_creation_order() {
+        var count = taskService.count();
+        for (int i = 0; i < 5; i++) {
+            taskService.createTask("Task " + i, null);
+        }
+        assertThat(taskService.count()).isEqualTo(count + 5);
+
+        var firstPage = taskService.listAfter(null, 2);
+        var secondPage = taskService.listAfter(TaskCursor.of(firstPage.getLast()), 2);
+        var lastPage = taskService.listAfter(TaskCursor.of(secondPage.getLast()), 2);
+        assertThat(firstPage).extracting(TaskRow::description).containsExactly("Task 0", "Task 1");
+        assertThat(secondPage).extracting(TaskRow::description).containsExactly("Task 2", "Task 3");
+        assertThat(lastPage).extracting(TaskRow::description).containsExactly("Task 4");
+    }
+
+    @Test
+    public void first_page_from_a_cursor_is_served_from_the_query_cache() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var first = taskService.listAfter(null, 50);
+        var hits = statistics.getQueryCacheHitCount();
+        assertThat(taskService.listAfter(null, 50)).isEqualTo(first);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void tasks_can_be_created_and_completed_in_bulk() {
+        var newTasks = IntStream.range(0, 120).mapToObj(i -> new NewTask("Task " + i, null)).toList();
+        taskService.createTasks(newTasks);
+        var tasks = taskService.listAfter(null, 200);
+        assertThat(tasks).hasSize(120);
+
+        var ids = tasks.stream().limit(100).map(TaskRow::id).toList();
+        assertThat(taskService.markDone(ids, true)).isEqualTo(100);
+        assertThat(taskService.listAfter(null, 200)).filteredOn(TaskRow::done).hasSize(100);
+    }
+
+    @Test
+    public void updating_a_missing_task_fails() {
+        assertThatThrownBy(() -> taskService.updateTaskDone(-1L, true)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void task_operations_are_timed() {
+        // The meters are shared by all tests using the same application context
+        taskService.createTask("Timed", null);
+        taskService.list(PageRequest.ofSize(1));
+        var created = createTaskTimer().count();
+        var listed = listedRows().totalAmount();
+        taskService.createTask("Timed", null);
+        taskService.list(PageRequest.ofSize(1));
+        assertThat(createTaskTimer().count()).isEqualTo(created + 1);
+        assertThat(listedRows().totalAmount()).isEqualTo(listed + 1);
+    }
+
+    private Timer createTaskTimer() {
+        return meterRegistry.get("task.service").tag("operation", "createTask").timer();
+    }
+
+    private DistributionSummary listedRows() {
+        return meterRegistry.get("task.service.rows").tag("operation", "list").summary();
+    }
+
+    @Test
+    public void tasks_can_be_searched_by_words_and_filtered() {
+        taskService.createTasks(List.of(
+                new NewTask("Buy milk and bread", null),
+                new NewTask("Bake bread", null),
+                new NewTask("Call the bakery", LocalDate.now().plusDays(1)),
+                new NewTask("Água para as plantas", null)));
+        var tasks = taskService.listAfter(null, 10);
+        // The index is updated after commit, which never happens in these rolled back tests
+        searchIndex.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED,
+                tasks.stream().map(TaskRow::id).toList()));
+        taskService.markDone(List.of(tasks.get(1).id()), true);
+
+        assertThat(search(new TaskFilter("bread", null, null, null, null)))
+                .containsExactly("Buy milk and bread", "Bake bread");
+        assertThat(search(new TaskFilter("BREAD milk", null, null, null, null)))
+                .containsExactly("Buy milk and bread");
+        assertThat(search(new TaskFilter("bak", null, null, null, null)))
+                .containsExactly("Bake bread", "Call the bakery");
+        assertThat(search(new TaskFilter("bak", false, null, null, null)))
+                .containsExactly("Call the bakery");
+        assertThat(search(new TaskFilter("bak", null, null, null, Task.Priority.LOW)))
+                .containsExactly("Bake bread");
+        assertThat(search(new TaskFilter("agua", null, null, null, null)))
+                .containsExactly("Água para as plantas");
+        assertThat(search(new TaskFilter(null, true, null, null, null)))
+                .containsExactly("Bake bread");
+    }
+
+    @Test
+    public void search_results_can_be_paged_from_a_cursor() {
+        taskService.createTasks(IntStream.range(0, 7).mapToObj(i -> new NewTask("Water plant " + i, null)).toList());
+        var created = taskService.listAfter(null, 1000).stream()
+                .filter(task -> task.description().startsWith("Water plant")).toList();
+        searchIndex.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED,
+                created.stream().map(TaskRow::id).toList()));
+        var filter = new TaskFilter("water pla", null, null, null, null);
+
+        var firstPage = taskService.searchAfter(filter, null, 3);
+        var secondPage = taskService.searchAfter(filter, TaskCursor.of(firstPage.getLast()), 3);
+        var lastPage = taskService.searchAfter(filter, TaskCursor.of(secondPage.getLast()), 3);
+        assertThat(ListUtils.union(ListUtils.union(firstPage, secondPage), lastPage)).isEqualTo(created);
+        assertThat(taskService.search(filter, PageRequest.of(1, 3))).isEqualTo(secondPage);
+
+        // Deleted tasks are removed from the index
+        searchIndex.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.DELETED,
+                List.of(created.getFirst().id())));
+        assertThat(searchIndex.search("water pla")).doesNotContain(created.getFirst().id());
+    }
+
+    private List<String> search(TaskFilter filter) {
+        return taskService.search(filter, PageRequest.ofSize(10)).stream().map(TaskRow::description).toList();
+    }
+
+    @Test
+    public void done_tasks_are_moved_to_the_archive() {
+        taskService.createTask("Done", null);
+        taskService.createTask("Not done", null);
+        var done = taskService.findAll().stream().filter(task -> task.description().equals("Done")).findFirst()
+                .orElseThrow();
+        taskService.updateTaskDone(done.id(), true);
+
+        assertThat(taskService.archiveDoneTasks(Instant.now().plusSeconds(1), 10)).isEqualTo(1);
+        assertThat(taskService.findAll()).extracting(TaskRow::description).containsExactly("Not done");
+        assertThat(taskService.findById(done.id())).isEmpty();
+        assertThat(taskService.findAll(true)).extracting(TaskRow::description, TaskRow::done)
+                .containsExactly(tuple("Not done", false), tuple("Done", true));
+    }
+
+    @Test
+    public void archived_tasks_are_only_searched_and_exported_when_included() throws Exception {
+        taskService.createTask("Archived chore", null);
+        var done = taskService.findAll().stream().filter(task -> task.description().equals("Archived chore"))
+                .findFirst().orElseThrow();
+        taskService.updateTaskDone(done.id(), true);
+        taskService.archiveDoneTasks(Instant.now().plusSeconds(1), 10);
+
+        assertThat(search(new TaskFilter(null, true, null, null, null))).doesNotContain("Archived chore");
+        assertThat(search(new TaskFilter(null, true, null, null, null, true))).contains("Archived chore");
+        assertThat(taskService.searchAfter(new TaskFilter("archived cho", null, null, null, null, true), null, 10))
+                .extracting(TaskRow::id).containsExactly(done.id());
+        assertThat(search(new TaskFilter("archived cho", false, null, null, null, true))).isEmpty();
+
+        var withoutArchive = new ByteArrayOutputStream();
+        taskService.exportTasksToIcs(withoutArchive);
+        assertThat(withoutArchive.toString(StandardCharsets.UTF_8)).doesNotContain("SUMMARY:Archived chore");
+        var withArchive = new ByteArrayOutputStream();
+        taskService.exportTasksToIcs(withArchive, true, exported -> {
+        });
+        assertThat(withArchive.toString(StandardCharsets.UTF_8)).contains("SUMMARY:Archived chore");
+    }
 }
@@ -0,0 +1,81 @@
+package com.example.examplefeature;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The test transaction is rolled back, so counts are rebuilt and changes recorded by the test itself. The counts are
+// shared with the other tests, so they are rebuilt again once the test tasks are gone.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@Transactional
+class TaskStatisticsTest {
+
+    @Autowired
+    TaskService taskService;
+
+    @Autowired
+    TaskStatistics taskStatistics;
+
+    @AfterTransaction
+    void rebuildWithoutTestTasks() {
+        taskStatistics.rebuild();
+    }
+
+    @Test
+    public void tasks_are_counted_by_due_date_and_priority() {
+        var today = DailyClock.todayAsDate();
+        taskService.createTask("Overdue", today.minusDays(1));
+        taskService.createTask("Today", today);
+        taskService.createTask("Later", today.plusDays(30));
+        taskService.createTask("Whenever", null);
+        var done = taskService.findAll().stream().filter(task -> task.description().equals("Later")).findFirst()
+                .orElseThrow();
+        taskService.updateTaskDone(done.id(), true);
+
+        taskStatistics.rebuild();
+
+        assertThat(taskStatistics.current()).isEqualTo(new TaskStats(4, 1, 1, 1, 2, 0, 1));
+    }
+
+    @Test
+    public void changes_are_counted_without_reading_the_tasks_again() {
+        taskStatistics.rebuild();
+        var before = taskStatistics.current();
+        var generation = taskStatistics.generation();
+        var task = new TaskRow(-1L, 0, "Task", Instant.now(), DailyClock.todayAsDate().plusDays(4), false,
+                Task.Color.BLUE, null);
+
+        taskStatistics.record(generation, TaskCountByDueDate.changes(List.of(), List.of(task)));
+        assertThat(taskStatistics.current().total()).isEqualTo(before.total() + 1);
+        assertThat(taskStatistics.current().mediumPriority()).isEqualTo(before.mediumPriority() + 1);
+
+        taskStatistics.record(generation, TaskCountByDueDate.changes(List.of(task), List.of(task.withDone(true))));
+        assertThat(taskStatistics.current().done()).isEqualTo(before.done() + 1);
+        assertThat(taskStatistics.current().mediumPriority()).isEqualTo(before.mediumPriority());
+
+        taskStatistics.record(generation, TaskCountByDueDate.changes(List.of(task.withDone(true)), List.of()));
+        assertThat(taskStatistics.current()).isEqualTo(before);
+    }
+
+    @Test
+    public void changes_that_may_already_be_counted_are_read_again_instead() {
+        taskStatistics.rebuild();
+        var generation = taskStatistics.generation();
+        // Committed, but not yet recorded, when the counts are read
+        taskService.createTask("Created while counting", null);
+        taskStatistics.rebuild();
+        var counted = taskStatistics.current();
+
+        var created = new TaskRow(-1L, 0, "Created while counting", Instant.now(), null, false, Task.Color.BLUE,
+                null);
+        taskStatistics.record(generation, TaskCountByDueDate.changes(List.of(), List.of(created)));
+        assertThat(taskStatistics.current()).isEqualTo(counted);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.examplefeature;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskTest {
+
+    @AfterEach
+    void restoreClock() {
+        DailyClock.useClock(Clock.systemDefaultZone());
+    }
+
+    @Test
+    public void priority_depends_on_the_days_until_due() {
+        DailyClock.useClock(Clock.fixed(Instant.parse("2025-02-07T10:00:00Z"), ZoneOffset.UTC));
+        assertThat(taskDueOn(LocalDate.of(2025, 2, 1)).getPriority()).isEqualTo(Task.Priority.HIGH);
+        assertThat(taskDueOn(LocalDate.of(2025, 2, 9)).getPriority()).isEqualTo(Task.Priority.HIGH);
+        assertThat(taskDueOn(LocalDate.of(2025, 2, 10)).getPriority()).isEqualTo(Task.Priority.MEDIUM);
+        assertThat(taskDueOn(LocalDate.of(2025, 2, 12)).getPriority()).isEqualTo(Task.Priority.MEDIUM);
+        assertThat(taskDueOn(LocalDate.of(2025, 2, 13)).getPriority()).isEqualTo(Task.Priority.LOW);
+        assertThat(taskDueOn(null).getPriority()).isEqualTo(Task.Priority.LOW);
+    }
+
+    @Test
+    public void priority_changes_when_the_day_changes() {
+        var task = taskDueOn(LocalDate.of(2025, 2, 12));
+        DailyClock.useClock(Clock.fixed(Instant.parse("2025-02-06T23:59:59Z"), ZoneOffset.UTC));
+        assertThat(task.getPriority()).isEqualTo(Task.Priority.LOW);
+        DailyClock.useClock(Clock.fixed(Instant.parse("2025-02-07T00:00:00Z"), ZoneOffset.UTC));
+        assertThat(task.getPriority()).isEqualTo(Task.Priority.MEDIUM);
+    }
+
+    @Test
+    public void new_tasks_get_a_color_from_the_palette() {
+        var task = new Task("Task", Instant.now());
+        assertThat(task.getColor()).isIn((Object[]) Task.Color.values());
+        assertThat(task.getColor().getPartName()).startsWith("task-color-");
+    }
+
+    private static Task taskDueOn(@Nullable LocalDate dueDate) {
+        var task = new Task("Task", Instant.now());
+        task.setDueDate(dueDate);
+        return task;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.examplefeature.feed;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+class TaskFeedControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void feed_is_served_as_calendar_with_validators() throws Exception {
+        var result = mockMvc.perform(get("/feed/tasks.ics"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/")))
+                .andReturn();
+        // The export completes asynchronously, and then the body is streamed asynchronously
+        var export = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(export))
+                .andExpect(content().contentTypeCompatibleWith(TaskFeedController.TEXT_CALENDAR))
+                .andExpect(content().string(startsWith("BEGIN:VCALENDAR")));
+    }
+
+    @Test
+    public void unchanged_feed_is_not_sent_again() throws Exception {
+        var etag = mockMvc.perform(get("/feed/tasks.ics"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/feed/tasks.ics").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.examplefeature.ui;
+
+import com.example.examplefeature.Task;
+import com.example.examplefeature.TaskRow;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.checkbox.Checkbox;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.theme.lumo.LumoUtility;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Measures what rendered rows of the task grid add to the serialized size of a UI, which is what a session keeps per
+// open view. The baseline is the Done and Priority columns as the component columns they used to be. Run with
+// -Dtest=TaskGridSessionSizeTest to see the numbers.
+class TaskGridSessionSizeTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskGridSessionSizeTest.class);
+
+    // Rows rendered in the smaller of the two measurements, as a grid always renders at least one page
+    private static final int BASE_ROWS = 10;
+    private static final int ROWS = 200;
+
+    @Test
+    public void lit_renderer_columns_add_less_per_rendered_row_than_component_columns() throws IOException {
+        var componentColumnsPerRow = bytesPerRow(TaskGridSessionSizeTest::addComponentColumns);
+        var litRendererColumnsPerRow = bytesPerRow(grid -> TaskListView.addDoneAndPriorityColumns(grid,
+                (task, done) -> {
+                }));
+        log.info("Session bytes per rendered row: {} with component columns, {} with LitRenderer columns",
+                componentColumnsPerRow, litRendererColumnsPerRow);
+
+        assertThat(litRendererColumnsPerRow).isLessThan(componentColumnsPerRow / 2);
+    }
+
+    private static long bytesPerRow(Consumer<Grid<TaskRow>> columns) throws IOException {
+        return (sessionSize(columns, BASE_ROWS + ROWS) - sessionSize(columns, BASE_ROWS)) / ROWS;
+    }
+
+    // The size of a UI showing a grid in which the given number of rows have been rendered
+    private static long sessionSize(Consumer<Grid<TaskRow>> columns, int rows) throws IOException {
+        var ui = new UI();
+        ui.getInternals().setSession(new LockedSession());
+        var grid = new Grid<TaskRow>();
+        grid.addColumn(TaskRow::description).setHeader("Description");
+        columns.accept(grid);
+        // The first page is rendered without the browser asking for it
+        grid.setPageSize(rows);
+        grid.setItems(LongStream.range(0, BASE_ROWS + ROWS).mapToObj(TaskGridSessionSizeTest::createRow).toList());
+        ui.add(grid);
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+
+        var out = new ByteArrayOutputStream();
+        try (var objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(ui);
+        }
+        return out.size();
+    }
+
+    // Stands in for the session of a request, which the UI needs to send changes to the browser
+    private static class LockedSession extends VaadinSession {
+
+        LockedSession() {
+            super(null);
+        }
+
+        @Override
+        public boolean hasLock() {
+            return true;
+        }
+    }
+
+    private static TaskRow createRow(long id) {
+        return new TaskRow(id, 0, "Task " + id, Instant.EPOCH, LocalDate.of(2025, 1, 1).plusDays(id % 30),
+                id % 3 == 0, Task.Color.values()[(int) (id % Task.Color.values().length)], null);
+    }
+
+    // The Done and Priority columns as they were before they were rendered with LitRenderer
+    private static void addComponentColumns(Grid<TaskRow> grid) {
+        grid.addComponentColumn(task -> {
+            var checkbox = new Checkbox(task.done());
+            checkbox.addValueChangeListener(event -> {
+            });
+            return checkbox;
+        }).setHeader("Done");
+        grid.addComponentColumn(task -> {
+            var priority = task.priority();
+            var priorityBadge = new Span(priority.getDisplayName());
+            priorityBadge.addClassNames(LumoUtility.FontWeight.BOLD, LumoUtility.BorderRadius.MEDIUM,
+                    LumoUtility.Padding.Horizontal.SMALL, LumoUtility.TextAlignment.CENTER,
+                    "priority-" + priority.name().toLowerCase());
+            return priorityBadge;
+        }).setHeader("Priority");
+    }
+}